@@ -4,20 +4,36 @@ import org.bukkit.plugin.java.JavaPlugin;
 import pl.polardev.scase.command.AdminCaseCommand;
 import pl.polardev.scase.listener.CrateListener;
 import pl.polardev.scase.listener.GUIListener;
+import pl.polardev.scase.listener.KeyTrackingListener;
 import pl.polardev.scase.manager.AnimationManager;
 import pl.polardev.scase.manager.CrateManager;
+import pl.polardev.scase.manager.KeyGrantManager;
 import pl.polardev.scase.manager.RateLimitManager;
+import pl.polardev.scase.storage.AtomicFileWriter;
+import pl.polardev.scase.storage.OpeningJournal;
+import pl.polardev.scase.storage.PendingGrantStore;
+
+import java.io.File;
 
 public class CasePlugin extends JavaPlugin {
     private CrateManager crateManager;
     private AnimationManager animationManager;
     private RateLimitManager rateLimitManager;
     private GUIListener guiListener;
+    private OpeningJournal openingJournal;
+    private KeyGrantManager keyGrantManager;
+
+    private static final long WRITER_SHUTDOWN_TIMEOUT_MS = 5000;
 
     @Override
     public void onEnable() {
+        saveDefaultConfig();
+
         // Initialize managers
+        this.openingJournal = new OpeningJournal(this);
         this.crateManager = new CrateManager(this);
+        this.keyGrantManager = new KeyGrantManager(this, new PendingGrantStore(new File(getDataFolder(), "grants"),
+            AtomicFileWriter.SyncMode.parse(getConfig().getString("storage.fsync", "batch")), getLogger()));
         this.animationManager = new AnimationManager(this);
         this.rateLimitManager = new RateLimitManager(this);
         this.guiListener = new GUIListener(this);
@@ -28,6 +44,7 @@ public class CasePlugin extends JavaPlugin {
 
         getServer().getPluginManager().registerEvents(new CrateListener(this), this);
         getServer().getPluginManager().registerEvents(guiListener, this);
+        getServer().getPluginManager().registerEvents(new KeyTrackingListener(this), this);
 
         getLogger().info("Simple-Case plugin enabled successfully!");
         getLogger().info("Enterprise-level optimizations active - ready for 1000+ players");
@@ -42,7 +59,13 @@ public class CasePlugin extends JavaPlugin {
             animationManager.shutdown();
         }
         if (crateManager != null) {
-            crateManager.saveAllCrates();
+            crateManager.shutdown();
+        }
+        if (keyGrantManager != null) {
+            keyGrantManager.shutdown(WRITER_SHUTDOWN_TIMEOUT_MS);
+        }
+        if (openingJournal != null) {
+            openingJournal.shutdown(WRITER_SHUTDOWN_TIMEOUT_MS);
         }
         getLogger().info("Simple-Case plugin disabled successfully!");
     }
@@ -62,4 +85,12 @@ public class CasePlugin extends JavaPlugin {
     public GUIListener getGUIListener() {
         return guiListener;
     }
+
+    public KeyGrantManager getKeyGrantManager() {
+        return keyGrantManager;
+    }
+
+    public OpeningJournal getOpeningJournal() {
+        return openingJournal;
+    }
 }
@@ -2,6 +2,7 @@ package pl.polardev.scase.command;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.block.Block;
 import org.bukkit.command.*;
 import org.bukkit.entity.Player;
@@ -11,18 +12,31 @@ import org.jetbrains.annotations.Nullable;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.inventory.CrateEditInventory;
 import pl.polardev.scase.helper.ChatHelper;
+import pl.polardev.scase.helper.ExpiringLruCache;
+import pl.polardev.scase.manager.AnimationManager;
+import pl.polardev.scase.manager.CrateBlockIndex;
+import pl.polardev.scase.manager.CrateBlockSweep;
 import pl.polardev.scase.manager.CrateManager;
+import pl.polardev.scase.manager.KeyDistribution;
+import pl.polardev.scase.manager.KeyLedger;
+import pl.polardev.scase.manager.PhysicalKeyIndex;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.KeyAccount;
+import pl.polardev.scase.storage.CrateSaveQueue;
+import pl.polardev.scase.storage.OpeningJournal;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
 
 public class AdminCaseCommand implements TabExecutor {
     private final CasePlugin plugin;
-    private static final Set<String> SUBCOMMANDS = Set.of("create", "edit", "delete", "setkey", "givekey", "setcase", "reload");
-    private static final Set<String> CRATE_REQUIRING_COMMANDS = Set.of("edit", "delete", "setkey", "givekey", "setcase");
+    private static final Set<String> SUBCOMMANDS = Set.of("create", "edit", "delete", "setkey", "givekey", "setcase", "setweight", "stats", "cache", "sweep", "export", "import", "migrate", "reload");
+    private static final Set<String> CRATE_REQUIRING_COMMANDS = Set.of("edit", "delete", "setkey", "givekey", "setcase", "setweight", "export");
     private static final int MAX_KEYS_PER_COMMAND = 10000;
+    private static final String PERMISSION_TARGET_PREFIX = "perm:";
 
     public AdminCaseCommand(CasePlugin plugin) {
         this.plugin = plugin;
@@ -30,7 +44,11 @@ public class AdminCaseCommand implements TabExecutor {
 
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String @NotNull [] args) {
+        // Key grants come from store scripts on the console, everything else needs a player in game
         if (!(sender instanceof Player player)) {
+            if (args.length > 0 && "givekey".equalsIgnoreCase(args[0])) {
+                return handleGiveKey(sender, args);
+            }
             sender.sendMessage("Only players can use this command.");
             return true;
         }
@@ -41,7 +59,7 @@ public class AdminCaseCommand implements TabExecutor {
         }
 
         if (args.length == 0) {
-            ChatHelper.showTitle(player, "<gold>Usage", "<gray>/admincase {create|edit|delete|setkey|givekey|setcase|reload}");
+            ChatHelper.showTitle(player, "<gold>Usage", "<gray>/admincase {create|edit|delete|setkey|givekey|setcase|setweight|stats|cache|sweep|export|import|migrate|reload}");
             return true;
         }
 
@@ -54,9 +72,16 @@ public class AdminCaseCommand implements TabExecutor {
             case "setkey" -> handleSetKey(player, args);
             case "givekey" -> handleGiveKey(player, args);
             case "setcase" -> handleSetCase(player, args);
+            case "setweight" -> handleSetWeight(player, args);
+            case "stats" -> handleStats(player);
+            case "cache" -> handleCache(player);
+            case "sweep" -> handleSweep(player, args);
+            case "export" -> handleExport(player, args);
+            case "import" -> handleImport(player, args);
+            case "migrate" -> handleMigrate(player, args);
             case "reload" -> handleReload(player);
             default -> {
-                ChatHelper.showTitle(player, "<red>Invalid Command", "<gray>Use /admincase {create|edit|delete|setkey|givekey|setcase|reload}");
+                ChatHelper.showTitle(player, "<red>Invalid Command", "<gray>Use /admincase {create|edit|delete|setkey|givekey|setcase|setweight|stats|cache|sweep|export|import|migrate|reload}");
                 yield true;
             }
         };
@@ -142,17 +167,16 @@ public class AdminCaseCommand implements TabExecutor {
 
         Crate crate = plugin.getCrateManager().getCrate(crateName);
         if (crate != null) {
-            crate.setKeyItem(itemInHand);
-            plugin.getCrateManager().saveCrate(crate);
+            plugin.getCrateManager().setKeyItem(crate, itemInHand);
             ChatHelper.showTitle(player, "<green>Success", "<gray>Klucz dla skrzynki <gold>" + crateName + "<gray> został ustawiony");
         }
 
         return true;
     }
 
-    private boolean handleGiveKey(Player player, String[] args) {
+    private boolean handleGiveKey(CommandSender sender, String[] args) {
         if (args.length < 4) {
-            ChatHelper.showTitle(player, "<red>Usage", "<gray>/admincase givekey <crate> <player> <amount>");
+            ChatHelper.reply(sender, "<red>Usage", "<gray>/admincase givekey <crate> <player|*|perm:<node>> <amount>");
             return true;
         }
 
@@ -160,37 +184,64 @@ public class AdminCaseCommand implements TabExecutor {
         String targetPlayerName = args[2];
 
         if (!plugin.getCrateManager().crateExists(crateName)) {
-            ChatHelper.showTitle(player, "<red>Error", "<gray>Crate <gold>" + crateName + "<gray> not found");
+            ChatHelper.reply(sender, "<red>Error", "<gray>Crate <gold>" + crateName + "<gray> not found");
             return true;
         }
 
         Crate crate = plugin.getCrateManager().getCrate(crateName);
         if (crate == null || crate.getKeyItem() == null) {
-            ChatHelper.showTitle(player, "<red>Error", "<gray>Skrzynka <gold>" + crateName + "<gray> nie ma ustawionego klucza! Użyj /admincase setkey");
+            ChatHelper.reply(sender, "<red>Error", "<gray>Skrzynka <gold>" + crateName + "<gray> nie ma ustawionego klucza! Użyj /admincase setkey");
             return true;
         }
 
-        Player targetPlayer = Bukkit.getPlayer(targetPlayerName);
-        if (targetPlayer == null) {
-            ChatHelper.showTitle(player, "<red>Error", "<gray>Player <gold>" + targetPlayerName + "<gray> not found");
+        int amount;
+        try {
+            amount = Math.min(Integer.parseInt(args[3]), MAX_KEYS_PER_COMMAND);
+        } catch (NumberFormatException e) {
+            ChatHelper.reply(sender, "<red>Error", "<gray>Invalid number: " + args[3]);
+            return true;
+        }
+        if (amount <= 0) {
+            ChatHelper.reply(sender, "<red>Error", "<gray>Amount must be positive");
             return true;
         }
 
-        try {
-            int amount = Math.min(Integer.parseInt(args[3]), MAX_KEYS_PER_COMMAND);
-            ItemStack keyItem = crate.getKeyItem().clone();
-            keyItem.setAmount(amount);
+        if ("*".equals(targetPlayerName) || targetPlayerName.startsWith(PERMISSION_TARGET_PREFIX)) {
+            String permission = "*".equals(targetPlayerName) ? null : targetPlayerName.substring(PERMISSION_TARGET_PREFIX.length());
+            if (permission != null && permission.isEmpty()) {
+                ChatHelper.reply(sender, "<red>Error", "<gray>Missing permission node after <gold>" + PERMISSION_TARGET_PREFIX);
+                return true;
+            }
 
-            // Give physical keys to player
-            targetPlayer.getInventory().addItem(keyItem).values().forEach(excess ->
-                targetPlayer.getWorld().dropItem(targetPlayer.getLocation(), excess));
+            new KeyDistribution(plugin, sender, crate, amount, permission).start();
+            return true;
+        }
 
-            ChatHelper.showTitle(player, "<green>Success", "<gray>Gave <gold>" + amount + "<gray> keys for <gold>" + crateName + "<gray> to <gold>" + targetPlayerName);
-            ChatHelper.showTitle(targetPlayer, "<green>Keys Received", "<gray>You received <gold>" + amount + "<gray> keys for <gold>" + crateName);
-        } catch (NumberFormatException e) {
-            ChatHelper.showTitle(player, "<red>Error", "<gray>Invalid number: " + args[3]);
+        Player targetPlayer = Bukkit.getPlayerExact(targetPlayerName);
+        if (targetPlayer == null) {
+            // Offline buyers get the keys on their next join instead of the caller having to retry
+            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayerIfCached(targetPlayerName);
+            if (offlinePlayer == null) {
+                ChatHelper.reply(sender, "<red>Error", "<gray>Player <gold>" + targetPlayerName + "<gray> has never joined the server");
+                return true;
+            }
+
+            plugin.getKeyGrantManager().queue(offlinePlayer.getUniqueId(), crate, amount);
+            ChatHelper.reply(sender, "<green>Queued", "<gray>Player <gold>" + targetPlayerName + "<gray> is offline, <gold>"
+                    + amount + "<gray> keys for <gold>" + crateName + "<gray> will be given on join");
+            return true;
         }
 
+        ItemStack keyItem = crate.getKeyItem();
+        keyItem.setAmount(amount);
+
+        // Give physical keys to player
+        targetPlayer.getInventory().addItem(keyItem).values().forEach(excess ->
+            targetPlayer.getWorld().dropItem(targetPlayer.getLocation(), excess));
+        plugin.getCrateManager().getPhysicalKeyIndex().invalidate(targetPlayer);
+
+        ChatHelper.reply(sender, "<green>Success", "<gray>Gave <gold>" + amount + "<gray> keys for <gold>" + crateName + "<gray> to <gold>" + targetPlayerName);
+        ChatHelper.showTitle(targetPlayer, "<green>Keys Received", "<gray>You received <gold>" + amount + "<gray> keys for <gold>" + crateName);
         return true;
     }
 
@@ -220,9 +271,243 @@ public class AdminCaseCommand implements TabExecutor {
         return true;
     }
 
+    private boolean handleSetWeight(Player player, String[] args) {
+        if (args.length < 4) {
+            ChatHelper.showTitle(player, "<red>Usage", "<gray>/admincase setweight <crate> <slot> <weight>");
+            return true;
+        }
+
+        String crateName = args[1];
+        Crate crate = plugin.getCrateManager().getCrate(crateName);
+
+        if (crate == null) {
+            ChatHelper.showTitle(player, "<red>Error", "<gray>Crate <gold>" + crateName + "<gray> not found");
+            return true;
+        }
+
+        try {
+            int slot = Integer.parseInt(args[2]);
+            int weight = Integer.parseInt(args[3]);
+
+            if (slot < 0 || slot >= crate.getItemCount()) {
+                ChatHelper.showTitle(player, "<red>Error", "<gray>Slot must be between <gold>0<gray> and <gold>" + (crate.getItemCount() - 1));
+                return true;
+            }
+
+            if (weight < 1) {
+                ChatHelper.showTitle(player, "<red>Error", "<gray>Weight must be at least <gold>1");
+                return true;
+            }
+
+            crate.setWeight(slot, weight);
+            plugin.getCrateManager().saveCrate(crate);
+            ChatHelper.showTitle(player, "<green>Success", "<gray>Slot <gold>" + slot + "<gray> weight set to <gold>" + weight
+                    + "<gray> (" + String.format("%.2f", weight * 100.0 / crate.getTotalWeight()) + "%)");
+        } catch (NumberFormatException e) {
+            ChatHelper.showTitle(player, "<red>Error", "<gray>Invalid number");
+        }
+
+        return true;
+    }
+
+    private boolean handleSweep(Player player, String[] args) {
+        CrateBlockSweep sweep = plugin.getCrateManager().getSweep();
+
+        if (args.length >= 2 && "cancel".equalsIgnoreCase(args[1])) {
+            if (sweep == null) {
+                ChatHelper.showTitle(player, "<red>Error", "<gray>No sweep is running");
+            } else {
+                sweep.cancel();
+            }
+            return true;
+        }
+
+        if (sweep != null) {
+            ChatHelper.sendMessage(player, "<yellow>Sweep running: " + sweep.getProgress());
+            return true;
+        }
+
+        plugin.getCrateManager().startSweep(player);
+        return true;
+    }
+
+    private boolean handleCache(Player player) {
+        KeyLedger keyLedger = plugin.getCrateManager().getKeyLedger();
+        ExpiringLruCache<UUID, KeyAccount> cache = keyLedger.getOfflineCache();
+
+        long cacheHits = cache.getHits();
+        long cacheLookups = cacheHits + cache.getMisses();
+        ChatHelper.sendMessage(player, "<gold>Simple-Case - pamięć kluczy");
+        ChatHelper.sendMessage(player, "<gray>Online: <gold>" + keyLedger.getOnlineAccounts()
+                + "<gray>, offline: <gold>" + cache.size() + "<gray>/<gold>" + cache.getMaxSize());
+        ChatHelper.sendMessage(player, "<gray>Trafienia offline: <gold>" + cacheHits + "<gray>/<gold>" + cacheLookups
+                + "<gray> (" + String.format("%.1f", cacheLookups == 0 ? 100.0 : cacheHits * 100.0 / cacheLookups) + "%)");
+        ChatHelper.sendMessage(player, "<gray>Usunięte: <gold>" + cache.getEvictions() + "<gray> (limit), <gold>"
+                + cache.getExpirations() + "<gray> (czas), do zapisu: <gold>" + keyLedger.getDirtyAccounts());
+        return true;
+    }
+
+    private boolean handleStats(Player player) {
+        CrateSaveQueue saveQueue = plugin.getCrateManager().getSaveQueue();
+
+        ChatHelper.sendMessage(player, "<gold>Simple-Case - zapis skrzynek");
+        ChatHelper.sendMessage(player, "<gray>Kolejka: <gold>" + saveQueue.getQueueDepth()
+                + "<gray> (oczekujące: <gold>" + saveQueue.getDirtyCount()
+                + "<gray>, w trakcie: <gold>" + saveQueue.getInFlightCount() + "<gray>)");
+        ChatHelper.sendMessage(player, "<gray>Zapisane skrzynki: <gold>" + saveQueue.getCratesWritten()
+                + "<gray>, połączone edycje: <gold>" + saveQueue.getCoalescedEdits());
+        ChatHelper.sendMessage(player, "<gray>Flush: <gold>" + saveQueue.getFlushCount()
+                + "<gray>x, ostatni <gold>" + String.format("%.2f", saveQueue.getLastFlushMillis())
+                + "ms<gray>, średnio <gold>" + String.format("%.2f", saveQueue.getAverageFlushMillis())
+                + "ms<gray>, max <gold>" + String.format("%.2f", saveQueue.getMaxFlushMillis()) + "ms");
+
+        KeyLedger keyLedger = plugin.getCrateManager().getKeyLedger();
+        ChatHelper.sendMessage(player, "<gray>Wirtualne klucze: <gold>" + keyLedger.getOnlineAccounts()
+                + "<gray> kont online, <gold>" + keyLedger.getDirtyAccounts()
+                + "<gray> do zapisu, <gold>" + keyLedger.getAccountsWritten() + "<gray> zapisanych");
+        long keyHits = keyLedger.getHits();
+        long keyLookups = keyHits + keyLedger.getMisses();
+        ChatHelper.sendMessage(player, "<gray>Trafienia w pamięci: <gold>" + keyHits + "<gray>/<gold>" + keyLookups
+                + "<gray> (" + String.format("%.1f", keyLookups == 0 ? 100.0 : keyHits * 100.0 / keyLookups)
+                + "%), wczytane przy logowaniu: <gold>" + keyLedger.getPreloads()
+                + "<gray>, szybkie powroty: <gold>" + keyLedger.getWarmRejoins());
+
+        PhysicalKeyIndex physicalKeys = plugin.getCrateManager().getPhysicalKeyIndex();
+        ChatHelper.sendMessage(player, "<gray>Klucze fizyczne: <gold>" + physicalKeys.getIndexHits()
+                + "<gray> odczytów z indeksu, <gold>" + physicalKeys.getRescans()
+                + "<gray> skanów ekwipunku, <gold>" + physicalKeys.getSlotUpdates()
+                + "<gray> odświeżonych slotów, <gold>" + physicalKeys.getMigratedKeys() + "<gray> oznaczonych starych kluczy");
+
+        AnimationManager animations = plugin.getAnimationManager();
+        long slotWrites = animations.getSlotWrites();
+        long slotUpdates = slotWrites + animations.getSlotsSkipped();
+        ChatHelper.sendMessage(player, "<gray>Animacje: <gold>" + animations.getActiveAnimations() + "<gray> aktywnych, <gold>"
+                + animations.getFramesRendered() + "<gray> klatek, zapisane sloty: <gold>" + slotWrites + "<gray>/<gold>" + slotUpdates
+                + "<gray> (" + String.format("%.1f", slotUpdates == 0 ? 100.0 : slotWrites * 100.0 / slotUpdates) + "%)");
+        ChatHelper.sendMessage(player, "<gray>Budżet animacji: tryb <gold>" + animations.getLoadMode().name().toLowerCase()
+                + "<gray>, w kolejce <gold>" + animations.getDeferredCount() + "<gray>, odłożone klatki: <gold>"
+                + animations.getFramesDeferred() + "<gray>, pominięte klatki: <gold>" + animations.getFramesDropped());
+
+        CrateBlockIndex blockIndex = plugin.getCrateManager().getBlockIndex();
+        ChatHelper.sendMessage(player, "<gray>Bloki skrzynek: <gold>" + blockIndex.size()
+                + "<gray> w indeksie, <gold>" + blockIndex.getHits() + "<gray>/<gold>" + blockIndex.getLookups()
+                + "<gray> kliknięć w skrzynki, <gold>" + plugin.getCrateManager().getLegacyBlocksMigrated()
+                + "<gray> przeniesionych ze starego formatu, <gold>" + plugin.getCrateManager().getStaleMarkersRemoved()
+                + "<gray> nieaktualnych usuniętych");
+
+        OpeningJournal journal = plugin.getOpeningJournal();
+        if (journal.isEnabled()) {
+            ChatHelper.sendMessage(player, "<gray>Dziennik otwarć: <gold>" + journal.getWrittenCount()
+                    + "<gray> zapisanych, <gold>" + journal.getPendingCount()
+                    + "<gray> w kolejce, <gold>" + journal.getDroppedCount() + "<gray> odrzuconych");
+        }
+        return true;
+    }
+
+    private boolean handleExport(Player player, String[] args) {
+        if (args.length < 2) {
+            ChatHelper.showTitle(player, "<red>Usage", "<gray>/admincase export <crate|*>");
+            return true;
+        }
+
+        CrateManager crateManager = plugin.getCrateManager();
+        List<Crate> toExport = new ArrayList<>();
+        if ("*".equals(args[1])) {
+            crateManager.getCrateNames().forEach(name -> toExport.add(crateManager.getCrate(name)));
+        } else {
+            Crate crate = crateManager.getCrate(args[1]);
+            if (crate == null) {
+                ChatHelper.showTitle(player, "<red>Error", "<gray>Crate <gold>" + args[1] + "<gray> not found");
+                return true;
+            }
+            toExport.add(crate);
+        }
+
+        crateManager.exportCrates(toExport).whenComplete((count, error) ->
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "Crate export failed", error);
+                    ChatHelper.sendMessage(player, "<red>Eksport nie powiódł się: " + error.getMessage());
+                } else {
+                    ChatHelper.sendMessage(player, "<green>Wyeksportowano <gold>" + count + "<green> skrzynek do folderu export");
+                }
+            }));
+        return true;
+    }
+
+    private boolean handleImport(Player player, String[] args) {
+        if (args.length < 2) {
+            ChatHelper.showTitle(player, "<red>Usage", "<gray>/admincase import <file|*>");
+            return true;
+        }
+
+        CrateManager crateManager = plugin.getCrateManager();
+        crateManager.readImports(args[1]).whenComplete((imported, error) ->
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "Crate import failed", error);
+                    ChatHelper.sendMessage(player, "<red>Import nie powiódł się: " + error.getMessage());
+                    return;
+                }
+
+                if (imported.isEmpty()) {
+                    ChatHelper.sendMessage(player, "<red>Nie znaleziono plików do importu w folderze import");
+                    return;
+                }
+
+                crateManager.applyImports(imported);
+                ChatHelper.sendMessage(player, "<green>Zaimportowano <gold>" + imported.size() + "<green> skrzynek");
+            }));
+        return true;
+    }
+
+    private boolean handleMigrate(Player player, String[] args) {
+        if (args.length < 3) {
+            ChatHelper.showTitle(player, "<red>Usage", "<gray>/admincase migrate <file|sqlite> <file|sqlite>");
+            return true;
+        }
+
+        CrateManager crateManager = plugin.getCrateManager();
+        String from = args[1].toLowerCase();
+        String to = args[2].toLowerCase();
+
+        if (!CrateManager.STORE_TYPES.contains(from) || !CrateManager.STORE_TYPES.contains(to) || from.equals(to)) {
+            ChatHelper.showTitle(player, "<red>Error", "<gray>Choose two different stores: <gold>file<gray>, <gold>sqlite");
+            return true;
+        }
+
+        if (to.equals(crateManager.getStore().getType())) {
+            ChatHelper.showTitle(player, "<red>Error", "<gray>Cannot migrate into the active <gold>" + to + "<gray> store");
+            return true;
+        }
+
+        crateManager.saveAllCrates();
+        ChatHelper.sendMessage(player, "<gray>Kopiowanie skrzynek z <gold>" + from + "<gray> do <gold>" + to + "<gray>...");
+
+        crateManager.migrateStore(from, to).whenComplete((count, error) ->
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "Crate store migration failed", error);
+                    ChatHelper.sendMessage(player, "<red>Migracja nie powiodła się: " + error.getMessage());
+                } else {
+                    ChatHelper.sendMessage(player, "<green>Skopiowano <gold>" + count + "<green> skrzynek. Ustaw <gold>storage.type: "
+                        + to + "<green> w config.yml i zrestartuj serwer");
+                }
+            }));
+        return true;
+    }
+
     private boolean handleReload(Player player) {
-        plugin.getCrateManager().reload();
-        ChatHelper.showTitle(player, "<green>Success", "<gray>Plugin reloaded successfully");
+        plugin.reloadConfig();
+        plugin.getAnimationManager().loadProfiles();
+        plugin.getAnimationManager().loadBudget();
+        plugin.getCrateManager().reload().whenComplete((count, error) -> {
+            if (error != null) {
+                ChatHelper.showTitle(player, "<red>Error", "<gray>Reload failed, check the console");
+            } else {
+                ChatHelper.showTitle(player, "<green>Success", "<gray>Reloaded <gold>" + count + "<gray> crates");
+            }
+        });
         return true;
     }
 
@@ -237,6 +522,14 @@ public class AdminCaseCommand implements TabExecutor {
                     .filter(sub -> sub.toLowerCase().startsWith(args[0].toLowerCase()))
                     .toList();
             case 2 -> {
+                if ("migrate".equalsIgnoreCase(args[0])) {
+                    yield CrateManager.STORE_TYPES.stream()
+                            .filter(type -> type.startsWith(args[1].toLowerCase()))
+                            .toList();
+                }
+                if ("sweep".equalsIgnoreCase(args[0])) {
+                    yield "cancel".startsWith(args[1].toLowerCase()) ? List.of("cancel") : new ArrayList<>();
+                }
                 if (CRATE_REQUIRING_COMMANDS.contains(args[0].toLowerCase())) {
                     yield plugin.getCrateManager().getCrateNames().stream()
                             .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
@@ -245,9 +538,15 @@ public class AdminCaseCommand implements TabExecutor {
                 yield new ArrayList<>();
             }
             case 3 -> {
+                if ("migrate".equalsIgnoreCase(args[0])) {
+                    yield CrateManager.STORE_TYPES.stream()
+                            .filter(type -> type.startsWith(args[2].toLowerCase()))
+                            .toList();
+                }
                 if ("givekey".equalsIgnoreCase(args[0])) {
-                    yield Bukkit.getOnlinePlayers().stream()
-                            .map(Player::getName)
+                    List<String> targets = new ArrayList<>(List.of("*", PERMISSION_TARGET_PREFIX));
+                    Bukkit.getOnlinePlayers().forEach(online -> targets.add(online.getName()));
+                    yield targets.stream()
                             .filter(name -> name.toLowerCase().startsWith(args[2].toLowerCase()))
                             .toList();
                 }
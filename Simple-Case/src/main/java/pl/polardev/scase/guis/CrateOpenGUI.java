@@ -16,7 +16,6 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class CrateOpenGUI implements InventoryHolder {
     private final CasePlugin plugin;
@@ -142,9 +141,7 @@ public class CrateOpenGUI implements InventoryHolder {
     }
 
     private ItemStack getRandomDisplayItem() {
-        return crate.getItems().isEmpty()
-            ? new ItemStack(Material.STONE)
-            : crate.getItems().get(ThreadLocalRandom.current().nextInt(crate.getItems().size()));
+        return crate.getRandomItem().orElseGet(() -> new ItemStack(Material.STONE));
     }
 
     private void consumeKeyAsync() {
@@ -3,6 +3,7 @@ package pl.polardev.scase.helper;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.title.Title;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.time.Duration;
@@ -27,6 +28,15 @@ public class ChatHelper {
         player.showTitle(titleObj);
     }
 
+    // Console and command blocks have no title, they get the same text as one chat line
+    public static void reply(CommandSender sender, String title, String subtitle) {
+        if (sender instanceof Player player) {
+            showTitle(player, title, subtitle);
+        } else {
+            sender.sendMessage(mm.deserialize(title + " <dark_gray>- " + subtitle));
+        }
+    }
+
     public static void sendMessage(Player player, String message) {
         Component component = mm.deserialize(message);
         player.sendMessage(component);
@@ -0,0 +1,148 @@
+package pl.polardev.scase.helper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Size-bounded LRU whose entries also expire after a period without access. Access order keeps the
+// least recently touched entry at the head, so expiry only ever looks at the head - O(1) amortized.
+public final class ExpiringLruCache<K, V> {
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value, boolean expired);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private long touchedAt;
+
+        private Entry(V value, long touchedAt) {
+            this.value = value;
+            this.touchedAt = touchedAt;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxSize;
+    private final long ttlNanos;
+    private final EvictionListener<K, V> listener;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public ExpiringLruCache(int maxSize, long ttlMillis, EvictionListener<K, V> listener) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = Math.max(0, ttlMillis) * 1_000_000L;
+        this.listener = listener;
+    }
+
+    public V get(K key) {
+        List<Map.Entry<K, V>> expired;
+        V value;
+        synchronized (this) {
+            long now = System.nanoTime();
+            expired = expire(now);
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                value = null;
+            } else {
+                hits++;
+                entry.touchedAt = now;
+                value = entry.value;
+            }
+        }
+        notify(expired, true);
+        return value;
+    }
+
+    // Takes an entry out without it counting as an eviction, e.g. when it moves somewhere else
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    public void put(K key, V value) {
+        List<Map.Entry<K, V>> expired;
+        List<Map.Entry<K, V>> evicted = new ArrayList<>(0);
+        synchronized (this) {
+            long now = System.nanoTime();
+            entries.put(key, new Entry<>(value, now));
+            expired = expire(now);
+
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (entries.size() > maxSize && iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = iterator.next();
+                iterator.remove();
+                evicted.add(Map.entry(eldest.getKey(), eldest.getValue().value));
+                evictions++;
+            }
+        }
+        notify(expired, true);
+        notify(evicted, false);
+    }
+
+    public void expireNow() {
+        List<Map.Entry<K, V>> expired;
+        synchronized (this) {
+            expired = expire(System.nanoTime());
+        }
+        notify(expired, true);
+    }
+
+    // Must hold the lock; listeners are called by the public methods after it is released
+    private List<Map.Entry<K, V>> expire(long now) {
+        List<Map.Entry<K, V>> expired = null;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            if (now - eldest.getValue().touchedAt < ttlNanos) break;
+
+            iterator.remove();
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(Map.entry(eldest.getKey(), eldest.getValue().value));
+            expirations++;
+        }
+        return expired;
+    }
+
+    private void notify(List<Map.Entry<K, V>> removed, boolean expired) {
+        if (removed == null) return;
+        for (Map.Entry<K, V> entry : removed) {
+            listener.onEviction(entry.getKey(), entry.getValue(), expired);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+}
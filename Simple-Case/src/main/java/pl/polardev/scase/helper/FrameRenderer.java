@@ -0,0 +1,38 @@
+package pl.polardev.scase.helper;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Draws a reel of reward indices into fixed inventory slots, writing only the slots whose reward changed
+// since the last frame. Indices point into an immutable prototype list (setItem copies the stack, so the
+// prototypes are handed over as they are); a negative index means there is nothing to show.
+// All writes of a frame land in the same tick, so the client gets them in one container sync.
+public final class FrameRenderer {
+    private final Inventory inventory;
+    private final int[] slots;
+    private final int[] rendered;
+
+    public FrameRenderer(Inventory inventory, int[] slots) {
+        this.inventory = inventory;
+        this.slots = slots;
+        this.rendered = new int[slots.length];
+        Arrays.fill(rendered, -1);
+    }
+
+    // Shows reel[offset .. offset + slots) and returns how many slots were actually written
+    public int render(int[] reel, int offset, List<ItemStack> prototypes) {
+        int written = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int index = reel[offset + i];
+            if (index < 0 || index == rendered[i]) continue;
+
+            inventory.setItem(slots[i], prototypes.get(index));
+            rendered[i] = index;
+            written++;
+        }
+        return written;
+    }
+}
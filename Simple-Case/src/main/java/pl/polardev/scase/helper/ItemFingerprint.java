@@ -0,0 +1,40 @@
+package pl.polardev.scase.helper;
+
+import org.bukkit.inventory.ItemStack;
+
+// 64-bit FNV-1a over an item's serialized form (amount ignored), so equal fingerprints mean "very likely similar".
+// Compute it once per item and keep it next to the item; serializing is about as expensive as one isSimilar.
+public class ItemFingerprint {
+    // Items that can't be serialized (air, broken meta) always fall through to isSimilar
+    public static final long UNKNOWN = 0L;
+
+    public static long of(ItemStack item) {
+        if (item == null || item.isEmpty()) return UNKNOWN;
+
+        byte[] data;
+        try {
+            data = item.asOne().serializeAsBytes();
+        } catch (RuntimeException e) {
+            return UNKNOWN;
+        }
+
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash == UNKNOWN ? 1L : hash;
+    }
+
+    // Different fingerprints settle it without touching the meta; equal ones are confirmed in case of a collision
+    public static boolean matches(ItemStack a, long fingerprintA, ItemStack b, long fingerprintB) {
+        if (fingerprintA != UNKNOWN && fingerprintB != UNKNOWN && fingerprintA != fingerprintB) {
+            return false;
+        }
+        return a.isSimilar(b);
+    }
+
+    public static String format(long fingerprint) {
+        return fingerprint == UNKNOWN ? "-" : String.format("%016x", fingerprint);
+    }
+}
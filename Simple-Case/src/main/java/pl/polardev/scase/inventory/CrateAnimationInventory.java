@@ -9,13 +9,17 @@ import org.bukkit.inventory.ItemStack;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.helper.ChatHelper;
 import pl.polardev.scase.helper.ItemBuilder;
+import pl.polardev.scase.model.AnimationProfile;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+import pl.polardev.scase.storage.OpeningJournal;
 
 public class CrateAnimationInventory implements InventoryHolder {
     private final CasePlugin plugin;
     private final Player player;
     private final Crate crate;
     private final Inventory inventory;
+    private final AnimationProfile profile;
     private boolean animationRunning;
 
     private static final int NEXT_BUTTON_SLOT = 23;
@@ -26,6 +30,7 @@ public class CrateAnimationInventory implements InventoryHolder {
         this.player = player;
         this.crate = crate;
         this.inventory = Bukkit.createInventory(this, 27, "Otwieranie: " + crate.getName());
+        this.profile = plugin.getAnimationManager().getProfile(crate);
         this.animationRunning = false;
 
         setupInitialInventory();
@@ -38,12 +43,11 @@ public class CrateAnimationInventory implements InventoryHolder {
 
     private void setupInitialInventory() {
         // Pre-fill with random items for initial display
-        int[] slots = {10, 11, 12, 13, 14, 15, 16};
-        for (int slot : slots) {
-            ItemStack randomItem = crate.getRandomItem();
-            if (randomItem != null) {
-                inventory.setItem(slot, randomItem);
-            }
+        CrateContents contents = crate.getContents();
+        if (!contents.hasItems()) return;
+
+        for (int i = 0; i < profile.getSlotCount(); i++) {
+            inventory.setItem(profile.getSlot(i), contents.getItem(contents.getRandomIndex()));
         }
     }
 
@@ -54,15 +58,16 @@ public class CrateAnimationInventory implements InventoryHolder {
 
     private void startAnimation() {
         animationRunning = true;
-        plugin.getAnimationManager().startAnimation(player, this, crate);
+        plugin.getAnimationManager().startAnimation(player, this, crate, profile);
     }
 
-    public void finishAnimation(ItemStack winningItem) {
+    public void finishAnimation(ItemStack winningItem, long winningFingerprint) {
         animationRunning = false;
 
         if (winningItem != null) {
             player.getInventory().addItem(winningItem.clone()).values()
                 .forEach(excess -> player.getWorld().dropItem(player.getLocation(), excess));
+            plugin.getOpeningJournal().record(player, crate, winningItem, winningFingerprint, 1, OpeningJournal.OpenMode.ANIMATION);
         }
 
         addControlButtons();
@@ -87,8 +92,7 @@ public class CrateAnimationInventory implements InventoryHolder {
 
         switch (slot) {
             case NEXT_BUTTON_SLOT -> {
-                if (hasPhysicalKey(player, crate)) {
-                    removePhysicalKey(player, crate);
+                if (plugin.getCrateManager().getPhysicalKeyIndex().takeKey(player, crate)) {
                     new CrateAnimationInventory(plugin, player, crate).open();
                 } else {
                     ChatHelper.sendMessage(player, "<red>Nie posiadasz klucza do tej skrzynki!");
@@ -98,20 +102,6 @@ public class CrateAnimationInventory implements InventoryHolder {
         }
     }
 
-    private boolean hasPhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return true; // No key required
-
-        return player.getInventory().containsAtLeast(keyItem, 1);
-    }
-
-    private void removePhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return; // No key required
-
-        player.getInventory().removeItem(keyItem.clone());
-    }
-
     public void onClose() {
         plugin.getAnimationManager().stopAnimation(player);
     }
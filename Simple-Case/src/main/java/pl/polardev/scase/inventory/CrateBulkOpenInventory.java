@@ -0,0 +1,106 @@
+package pl.polardev.scase.inventory;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ChatHelper;
+import pl.polardev.scase.helper.ItemBuilder;
+import pl.polardev.scase.manager.CrateManager;
+import pl.polardev.scase.model.Crate;
+
+import java.util.List;
+
+public class CrateBulkOpenInventory implements InventoryHolder {
+    private final CasePlugin plugin;
+    private final Player player;
+    private final Crate crate;
+    private final Inventory inventory;
+    private final CrateManager.BulkOpenResult result;
+
+    private static final int REWARD_SLOTS = 45;
+    private static final int AGAIN_SLOT = 50;
+    private static final int CLOSE_SLOT = 49;
+    private static final int SUMMARY_SLOT = 48;
+
+    private CrateBulkOpenInventory(CasePlugin plugin, Player player, Crate crate, CrateManager.BulkOpenResult result) {
+        this.plugin = plugin;
+        this.player = player;
+        this.crate = crate;
+        this.result = result;
+        this.inventory = Bukkit.createInventory(this, 54, "Otwarto " + result.opened() + "x: " + crate.getName());
+
+        setupInventory();
+    }
+
+    public static void openAll(CasePlugin plugin, Player player, Crate crate) {
+        // Bulk opening spends keys; a crate without a key only opens one at a time
+        if (crate.getContents().getKeyItem() == null) {
+            ChatHelper.sendMessage(player, "<red>Tej skrzynki nie można otworzyć hurtowo!");
+            return;
+        }
+
+        CrateManager.BulkOpenResult result = plugin.getCrateManager().openBulk(player, crate, CrateManager.MAX_BULK_OPEN);
+
+        if (result.opened() == 0) {
+            ChatHelper.sendMessage(player, "<red>Nie posiadasz klucza do tej skrzynki!");
+            return;
+        }
+
+        new CrateBulkOpenInventory(plugin, player, crate, result).open();
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    private void setupInventory() {
+        List<ItemStack> rewards = result.rewards();
+        int shown = Math.min(rewards.size(), REWARD_SLOTS);
+        for (int i = 0; i < shown; i++) {
+            inventory.setItem(i, rewards.get(i));
+        }
+
+        ItemStack summaryItem = ItemBuilder.of(Material.PAPER)
+                .name("<gold>Podsumowanie")
+                .lore("<gray>Otwarte skrzynki: <gold>" + result.opened(),
+                        "<gray>Stosy przedmiotów: <gold>" + rewards.size(),
+                        rewards.size() > shown ? "<gray>Niewyświetlone: <gold>" + (rewards.size() - shown) : "<gray>Wszystkie nagrody powyżej")
+                .build();
+        inventory.setItem(SUMMARY_SLOT, summaryItem);
+
+        ItemStack closeItem = ItemBuilder.of(Material.RED_DYE)
+                .name("<red>Zamknij")
+                .lore("<gray>Kliknij aby zamknąć te GUI")
+                .build();
+        inventory.setItem(CLOSE_SLOT, closeItem);
+
+        ItemStack againItem = ItemBuilder.of(Material.HOPPER)
+                .name("<green>Otwórz Wszystkie Ponownie")
+                .lore("<gray>Kliknij aby otworzyć wszystkie", "<gray>posiadane klucze naraz")
+                .build();
+        inventory.setItem(AGAIN_SLOT, againItem);
+    }
+
+    public void open() {
+        player.openInventory(inventory);
+    }
+
+    public void handleClick(int slot) {
+        if (slot == AGAIN_SLOT) {
+            if (plugin.getRateLimitManager().canOpenGUI(player)) {
+                openAll(plugin, player, crate);
+            }
+        } else if (slot == CLOSE_SLOT) {
+            player.closeInventory();
+        }
+    }
+
+    public Crate getCrate() {
+        return crate;
+    }
+}
@@ -9,6 +9,7 @@ import org.bukkit.inventory.ItemStack;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.helper.ChatHelper;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,11 +19,13 @@ public class CrateEditInventory implements InventoryHolder {
     private final Player player;
     private final Crate crate;
     private final Inventory inventory;
+    private final CrateContents openedContents;
 
     public CrateEditInventory(CasePlugin plugin, Player player, Crate crate) {
         this.plugin = plugin;
         this.player = player;
         this.crate = crate;
+        this.openedContents = crate.getContents();
         this.inventory = Bukkit.createInventory(this, 54, "Edytuj: " + crate.getName());
 
         setupInventory();
@@ -34,7 +37,7 @@ public class CrateEditInventory implements InventoryHolder {
     }
 
     private void setupInventory() {
-        List<ItemStack> items = crate.getItems();
+        List<ItemStack> items = openedContents.getItems();
         for (int i = 0; i < Math.min(items.size(), 54); i++) {
             inventory.setItem(i, items.get(i));
         }
@@ -54,6 +57,10 @@ public class CrateEditInventory implements InventoryHolder {
             }
         }
 
+        if (newItems.equals(openedContents.getItems())) {
+            return;
+        }
+
         crate.setItems(newItems);
         plugin.getCrateManager().saveCrate(crate);
 
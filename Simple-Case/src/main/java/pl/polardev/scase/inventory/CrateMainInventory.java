@@ -22,6 +22,7 @@ public class CrateMainInventory implements InventoryHolder {
     private static final Set<Integer> NORMAL_OPEN_SLOTS = Set.of(46, 47, 48);
     private static final Set<Integer> ANIMATION_OPEN_SLOTS = Set.of(50, 51, 52);
     private static final int CLOSE_SLOT = 49;
+    private static final int BULK_OPEN_SLOT = 45;
 
     public CrateMainInventory(CasePlugin plugin, Player player, Crate crate) {
         this.plugin = plugin;
@@ -62,6 +63,15 @@ public class CrateMainInventory implements InventoryHolder {
                 .build();
 
         inventory.setItem(CLOSE_SLOT, closeItem);
+
+        if (crate.getContents().getKeyItem() != null) {
+            ItemStack bulkOpen = ItemBuilder.of(Material.HOPPER)
+                    .name("<gold>Otwórz Wszystkie")
+                    .lore("<gray>Kliknij aby otworzyć wszystkie", "<gray>posiadane klucze naraz")
+                    .build();
+
+            inventory.setItem(BULK_OPEN_SLOT, bulkOpen);
+        }
     }
 
     public void open() {
@@ -73,14 +83,21 @@ public class CrateMainInventory implements InventoryHolder {
             handleNormalOpen();
         } else if (ANIMATION_OPEN_SLOTS.contains(slot)) {
             handleAnimationOpen();
+        } else if (slot == BULK_OPEN_SLOT) {
+            handleBulkOpen();
         } else if (slot == CLOSE_SLOT) {
             player.closeInventory();
         }
     }
 
+    private void handleBulkOpen() {
+        if (plugin.getRateLimitManager().canOpenGUI(player)) {
+            CrateBulkOpenInventory.openAll(plugin, player, crate);
+        }
+    }
+
     private void handleNormalOpen() {
-        if (hasPhysicalKey(player, crate)) {
-            removePhysicalKey(player, crate);
+        if (plugin.getCrateManager().getPhysicalKeyIndex().takeKey(player, crate)) {
             new CrateOpenInventory(plugin, player, crate).open();
         } else {
             ChatHelper.sendMessage(player, "<red>Nie posiadasz klucza do tej skrzynki!");
@@ -88,28 +105,13 @@ public class CrateMainInventory implements InventoryHolder {
     }
 
     private void handleAnimationOpen() {
-        if (hasPhysicalKey(player, crate)) {
-            removePhysicalKey(player, crate);
+        if (plugin.getCrateManager().getPhysicalKeyIndex().takeKey(player, crate)) {
             new CrateAnimationInventory(plugin, player, crate).open();
         } else {
             ChatHelper.sendMessage(player, "<red>Nie posiadasz klucza do tej skrzynki!");
         }
     }
 
-    private boolean hasPhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return true; // No key required
-
-        return player.getInventory().containsAtLeast(keyItem, 1);
-    }
-
-    private void removePhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return; // No key required
-
-        player.getInventory().removeItem(keyItem.clone());
-    }
-
     public Crate getCrate() {
         return crate;
     }
@@ -9,7 +9,10 @@ import org.bukkit.inventory.ItemStack;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.helper.ChatHelper;
 import pl.polardev.scase.helper.ItemBuilder;
+import pl.polardev.scase.helper.ItemFingerprint;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+import pl.polardev.scase.storage.OpeningJournal;
 
 public class CrateOpenInventory implements InventoryHolder {
     private final CasePlugin plugin;
@@ -17,16 +20,21 @@ public class CrateOpenInventory implements InventoryHolder {
     private final Crate crate;
     private final Inventory inventory;
     private final ItemStack wonItem;
+    private final long wonFingerprint;
 
     private static final int ITEM_SLOT = 13;
     private static final int NEXT_SLOT = 15;
     private static final int CLOSE_SLOT = 14;
+    private static final int BULK_OPEN_SLOT = 16;
 
     public CrateOpenInventory(CasePlugin plugin, Player player, Crate crate) {
         this.plugin = plugin;
         this.player = player;
         this.crate = crate;
-        this.wonItem = crate.getRandomItem();
+        CrateContents contents = crate.getContents();
+        int wonIndex = contents.getRandomIndex();
+        this.wonItem = wonIndex >= 0 ? contents.getItem(wonIndex).clone() : null;
+        this.wonFingerprint = wonIndex >= 0 ? contents.getFingerprint(wonIndex) : ItemFingerprint.UNKNOWN;
         this.inventory = Bukkit.createInventory(this, 27, "Wynik: " + crate.getName());
 
         setupInventory();
@@ -57,6 +65,14 @@ public class CrateOpenInventory implements InventoryHolder {
                 .lore("<gray>Kliknij aby zamknąć te GUI")
                 .build();
         inventory.setItem(CLOSE_SLOT, closeItem);
+
+        if (crate.getContents().getKeyItem() != null) {
+            ItemStack bulkItem = ItemBuilder.of(Material.HOPPER)
+                    .name("<gold>Otwórz Wszystkie")
+                    .lore("<gray>Kliknij aby otworzyć wszystkie", "<gray>posiadane klucze naraz")
+                    .build();
+            inventory.setItem(BULK_OPEN_SLOT, bulkItem);
+        }
     }
 
     public void open() {
@@ -66,36 +82,26 @@ public class CrateOpenInventory implements InventoryHolder {
             ItemStack clonedItem = wonItem.clone();
             player.getInventory().addItem(clonedItem).values()
                     .forEach(excess -> player.getWorld().dropItem(player.getLocation(), excess));
+            plugin.getOpeningJournal().record(player, crate, wonItem, wonFingerprint, 1, OpeningJournal.OpenMode.NORMAL);
         }
     }
 
     public void handleClick(int slot) {
         if (slot == NEXT_SLOT) {
-            if (hasPhysicalKey(player, crate)) {
-                removePhysicalKey(player, crate);
+            if (plugin.getCrateManager().getPhysicalKeyIndex().takeKey(player, crate)) {
                 new CrateOpenInventory(plugin, player, crate).open();
             } else {
                 ChatHelper.sendMessage(player, "<red>Nie posiadasz klucza do tej skrzynki!");
             }
+        } else if (slot == BULK_OPEN_SLOT) {
+            if (plugin.getRateLimitManager().canOpenGUI(player)) {
+                CrateBulkOpenInventory.openAll(plugin, player, crate);
+            }
         } else if (slot == CLOSE_SLOT) {
             player.closeInventory();
         }
     }
 
-    private boolean hasPhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return true; // No key required
-
-        return player.getInventory().containsAtLeast(keyItem, 1);
-    }
-
-    private void removePhysicalKey(Player player, Crate crate) {
-        ItemStack keyItem = crate.getKeyItem();
-        if (keyItem == null) return; // No key required
-
-        player.getInventory().removeItem(keyItem.clone());
-    }
-
     public boolean isThisInventory(Inventory inventory) {
         return this.inventory.equals(inventory);
     }
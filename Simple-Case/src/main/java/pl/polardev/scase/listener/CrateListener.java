@@ -7,8 +7,18 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.helper.ChatHelper;
 import pl.polardev.scase.inventory.CrateMainInventory;
@@ -28,6 +38,13 @@ public class CrateListener implements Listener {
         Block block = event.getClickedBlock();
         if (block == null) return;
 
+        // Every right-click on the server lands here - ordinary blocks leave after one index lookup
+        String crateName = plugin.getCrateManager().getCrateNameFromBlock(block);
+        if (crateName == null) return;
+
+        // A crate that is only missing (file moved away, failed to load) keeps its blocks, they just don't open
+        Crate crate = plugin.getCrateManager().getCrate(crateName);
+        event.setCancelled(true);
         Player player = event.getPlayer();
 
         // Rate limiting to prevent spam
@@ -35,17 +52,11 @@ public class CrateListener implements Listener {
             return;
         }
 
-        String crateName = plugin.getCrateManager().getCrateNameFromBlock(block);
-        if (crateName == null) return;
-
-        event.setCancelled(true);
-
         // Additional GUI opening rate limit
         if (!plugin.getRateLimitManager().canOpenGUI(player)) {
             return;
         }
 
-        Crate crate = plugin.getCrateManager().getCrate(crateName);
         if (crate != null) {
             new CrateMainInventory(plugin, player, crate).open();
         } else {
@@ -70,10 +81,87 @@ public class CrateListener implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCrateBroken(BlockBreakEvent event) {
+        plugin.getCrateManager().removeCrateBlock(event.getBlock());
+    }
+
+    // Markers sit at a position, so a crate block that disappears or moves without a BlockBreakEvent would
+    // leave one behind. Like players without permission, explosions, fire, pistons and mobs can't touch them.
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        event.blockList().removeIf(this::isCrateBlock);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().removeIf(this::isCrateBlock);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        if (isCrateBlock(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        if (event.getBlocks().stream().anyMatch(this::isCrateBlock)) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        if (event.getBlocks().stream().anyMatch(this::isCrateBlock)) {
+            event.setCancelled(true);
+        }
+    }
+
+    // Withers breaking blocks, endermen picking them up
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        if (isCrateBlock(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+
+    private boolean isCrateBlock(Block block) {
+        return plugin.getCrateManager().getCrateNameFromBlock(block) != null;
+    }
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Freshly generated chunks can't contain crates
+        if (event.isNewChunk()) return;
+
+        plugin.getCrateManager().loadChunk(event.getChunk());
+    }
+
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        plugin.getCrateManager().unloadChunk(event.getChunk());
+    }
+
+    // MONITOR so players another plugin turns away don't get anything loaded
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        plugin.getCrateManager().preloadPlayer(event.getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        plugin.getCrateManager().handlePlayerJoin(event.getPlayer());
+        plugin.getKeyGrantManager().deliver(event.getPlayer());
+    }
+
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         // Clean up player data when they leave
-        plugin.getCrateManager().invalidatePlayerCache(event.getPlayer());
+        plugin.getCrateManager().handlePlayerQuit(event.getPlayer());
         plugin.getAnimationManager().stopAnimation(event.getPlayer());
     }
 }
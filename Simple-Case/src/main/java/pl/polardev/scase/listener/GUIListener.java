@@ -36,6 +36,10 @@ public class GUIListener implements Listener {
                 event.setCancelled(true);
                 animGui.handleClick(event.getSlot());
             }
+            case CrateBulkOpenInventory bulkGui -> {
+                event.setCancelled(true);
+                bulkGui.handleClick(event.getSlot());
+            }
             case CrateEditInventory editGui -> {
                 // Allow ALL interactions in edit GUI - no cancellation at all
                 // Players can freely drag, drop, add, remove items
@@ -0,0 +1,107 @@
+package pl.polardev.scase.listener;
+
+import io.papermc.paper.event.player.PlayerInventorySlotChangeEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.PlayerInventory;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.manager.PhysicalKeyIndex;
+
+// Tells the physical key index which slots of a player's inventory an event may have changed. The events fire
+// before the change is applied, which is fine: the slots are only re-read on the next key check.
+public class KeyTrackingListener implements Listener {
+    private static final int OFF_HAND_SLOT = 40;
+
+    private final CasePlugin plugin;
+
+    public KeyTrackingListener(CasePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player player)) return;
+
+        PhysicalKeyIndex index = plugin.getCrateManager().getPhysicalKeyIndex();
+        Player owner = owner(event.getClickedInventory());
+        switch (event.getAction()) {
+            case NOTHING -> {
+                return;
+            }
+            // These can land in or take from any number of slots
+            case MOVE_TO_OTHER_INVENTORY, COLLECT_TO_CURSOR, UNKNOWN -> {
+                index.invalidate(player);
+                if (owner != null && owner != player) {
+                    index.invalidate(owner);
+                }
+                return;
+            }
+            default -> {
+            }
+        }
+
+        // Also covers another player's inventory opened by a plugin (/invsee)
+        if (owner != null) {
+            index.markSlot(owner, event.getSlot());
+        }
+        // Number keys and F swap the clicked slot with the clicker's own hotbar or off hand
+        if (event.getHotbarButton() >= 0) {
+            index.markSlot(player, event.getHotbarButton());
+        } else if (event.getClick() == ClickType.SWAP_OFFHAND) {
+            index.markSlot(player, OFF_HAND_SLOT);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        PhysicalKeyIndex index = plugin.getCrateManager().getPhysicalKeyIndex();
+        InventoryView view = event.getView();
+        for (int rawSlot : event.getRawSlots()) {
+            Player owner = owner(view.getInventory(rawSlot));
+            if (owner != null) {
+                index.markSlot(owner, view.convertSlot(rawSlot));
+            }
+        }
+    }
+
+    // Picked up items go wherever they fit; only a possible key is worth a full rescan
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+
+        PhysicalKeyIndex index = plugin.getCrateManager().getPhysicalKeyIndex();
+        if (index.mayBeKey(event.getItem().getItemStack())) {
+            index.invalidate(player);
+        }
+    }
+
+    // Dropping from an open inventory is a click on that slot already; this covers dropping the held item
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent event) {
+        PhysicalKeyIndex index = plugin.getCrateManager().getPhysicalKeyIndex();
+        if (index.mayBeKey(event.getItemDrop().getItemStack())) {
+            index.markSlot(event.getPlayer(), event.getPlayer().getInventory().getHeldItemSlot());
+        }
+    }
+
+    // Fired when the server sends a changed slot to the client, at the latest by the end of the tick. Catches
+    // what no event above reports: other plugins' /give and /clear, deaths, items used up or broken.
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSlotChange(PlayerInventorySlotChangeEvent event) {
+        plugin.getCrateManager().getPhysicalKeyIndex().markSlot(event.getPlayer(), event.getSlot());
+    }
+
+    private static Player owner(Inventory inventory) {
+        return inventory instanceof PlayerInventory playerInventory && playerInventory.getHolder() instanceof Player player
+            ? player : null;
+    }
+}
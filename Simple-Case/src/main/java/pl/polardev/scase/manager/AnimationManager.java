@@ -1,86 +1,378 @@
 package pl.polardev.scase.manager;
 
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitTask;
 import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.FrameRenderer;
+import pl.polardev.scase.helper.ItemFingerprint;
 import pl.polardev.scase.inventory.CrateAnimationInventory;
+import pl.polardev.scase.model.AnimationProfile;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
+// Animations sit in a timing wheel, bucketed by the tick of their next frame: a tick only touches the
+// animations that actually advance, and starting, stopping and finishing are O(1). Main thread only.
+// Frames past the per-tick budget wait in a FIFO queue that goes first next tick, so every animation
+// gets its turn; a late animation drops the frames it missed instead of running long.
 public class AnimationManager {
     private final CasePlugin plugin;
     private final Map<UUID, AnimationInstance> activeAnimations;
     private BukkitTask globalAnimationTask;
 
-    private static final int[] ANIMATION_SLOTS = {10, 11, 12, 13, 14, 15, 16};
-    private static final int ANIMATION_DURATION = 140;
+    // Power of two above the usual gaps between frames; longer gaps just wait for another turn of the wheel
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final AnimationInstance[] wheel = new AnimationInstance[WHEEL_SIZE];
+    private final ArrayDeque<AnimationInstance> deferred = new ArrayDeque<>();
+    private long currentTick;
+
+    // How often the server's average tick time is looked at for the adaptive mode
+    private static final int LOAD_SAMPLE_INTERVAL = 20;
+
+    public enum LoadMode {
+        NORMAL, SHORTEN, SKIP
+    }
+
+    private int frameBudget;
+    private long budgetNanos;
+    private boolean adaptive;
+    private double shortenMspt;
+    private double skipMspt;
+    private LoadMode loadMode = LoadMode.NORMAL;
+
+    // Replaced as a whole on reload; running animations keep the profile they started with
+    private volatile Map<String, AnimationProfile> profiles = Map.of();
+    private volatile AnimationProfile defaultProfile = AnimationProfile.CLASSIC;
+    private volatile Map<String, String> crateProfiles = Map.of();
+
+    private long framesRendered;
+    private long slotWrites;
+    private long slotsSkipped;
+    private long framesDeferred;
+    private long framesDropped;
 
     public AnimationManager(CasePlugin plugin) {
         this.plugin = plugin;
-        this.activeAnimations = new ConcurrentHashMap<>();
+        this.activeAnimations = new HashMap<>();
+        loadProfiles();
+        loadBudget();
         startGlobalAnimationTask();
     }
 
+    public void loadProfiles() {
+        Map<String, AnimationProfile> loaded = new HashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("animations.profiles");
+        if (section != null) {
+            for (String name : section.getKeys(false)) {
+                try {
+                    loaded.put(name.toLowerCase(), compileProfile(name, section.getConfigurationSection(name)));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Skipping animation profile " + name + ": " + e.getMessage());
+                }
+            }
+        }
+
+        String defaultName = plugin.getConfig().getString("animations.default", AnimationProfile.CLASSIC.getName()).toLowerCase();
+        AnimationProfile fallback = loaded.get(defaultName);
+        if (fallback == null) {
+            if (!defaultName.equals(AnimationProfile.CLASSIC.getName())) {
+                plugin.getLogger().warning("Default animation profile " + defaultName + " not found, using classic");
+            }
+            fallback = AnimationProfile.CLASSIC;
+        }
+
+        Map<String, String> assigned = new HashMap<>();
+        ConfigurationSection crates = plugin.getConfig().getConfigurationSection("animations.crates");
+        if (crates != null) {
+            for (String crateName : crates.getKeys(false)) {
+                String profileName = crates.getString(crateName, "").toLowerCase();
+                if (loaded.containsKey(profileName)) {
+                    assigned.put(crateName.toLowerCase(), profileName);
+                } else {
+                    plugin.getLogger().warning("Crate " + crateName + " uses unknown animation profile " + profileName);
+                }
+            }
+        }
+
+        profiles = Map.copyOf(loaded);
+        defaultProfile = fallback;
+        crateProfiles = Map.copyOf(assigned);
+    }
+
+    public void loadBudget() {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("animations.budget");
+        if (section == null) {
+            frameBudget = 0;
+            budgetNanos = 0;
+            adaptive = false;
+            loadMode = LoadMode.NORMAL;
+            return;
+        }
+
+        frameBudget = Math.max(0, section.getInt("frames-per-tick", 0));
+        budgetNanos = Math.max(0L, (long) (section.getDouble("ms-per-tick", 0.0) * 1_000_000));
+        adaptive = section.getBoolean("adaptive.enabled", false);
+        shortenMspt = section.getDouble("adaptive.shorten-mspt", 40.0);
+        skipMspt = section.getDouble("adaptive.skip-mspt", 48.0);
+        if (!adaptive) {
+            loadMode = LoadMode.NORMAL;
+        }
+    }
+
+    private static AnimationProfile compileProfile(String name, ConfigurationSection section) {
+        if (section == null) {
+            throw new IllegalArgumentException("not a section");
+        }
+
+        int duration = section.getInt("duration", AnimationProfile.CLASSIC.getDuration());
+        List<Integer> slotList = section.contains("slots") ? section.getIntegerList("slots") : null;
+        int[] slots = slotList != null ? slotList.stream().mapToInt(Integer::intValue).toArray() : AnimationProfile.DEFAULT_SLOTS;
+        AnimationProfile.Easing easing = AnimationProfile.Easing.parse(section.getString("easing", "steps"));
+
+        if (easing != AnimationProfile.Easing.STEPS) {
+            return AnimationProfile.eased(name, duration, easing,
+                section.getInt("start-interval", 2), section.getInt("end-interval", 20), slots);
+        }
+
+        ConfigurationSection steps = section.getConfigurationSection("steps");
+        if (steps == null) {
+            throw new IllegalArgumentException("easing 'steps' needs a steps section");
+        }
+        TreeMap<Integer, Integer> table = new TreeMap<>();
+        for (String from : steps.getKeys(false)) {
+            try {
+                table.put(Integer.parseInt(from), steps.getInt(from));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("step '" + from + "' is not a tick number");
+            }
+        }
+        return AnimationProfile.steps(name, duration,
+            table.keySet().stream().mapToInt(Integer::intValue).toArray(),
+            table.values().stream().mapToInt(Integer::intValue).toArray(), slots);
+    }
+
+    public AnimationProfile getProfile(Crate crate) {
+        String profileName = crateProfiles.get(crate.getName().toLowerCase());
+        AnimationProfile profile = profileName != null ? profiles.get(profileName) : null;
+        return profile != null ? profile : defaultProfile;
+    }
+
+    public int getProfileCount() {
+        return profiles.size();
+    }
+
     private void startGlobalAnimationTask() {
         if (globalAnimationTask != null) return;
 
-        globalAnimationTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
-            if (activeAnimations.isEmpty()) return;
-
-            activeAnimations.values().parallelStream().forEach(this::processAnimation);
-            activeAnimations.entrySet().removeIf(entry -> entry.getValue().isCompleted());
-        }, 1L, 1L);
+        globalAnimationTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
     }
 
-    public void startAnimation(Player player, CrateAnimationInventory gui, Crate crate) {
-        UUID playerId = player.getUniqueId();
+    private void tick() {
+        currentTick++;
+        if (adaptive && currentTick % LOAD_SAMPLE_INTERVAL == 0) {
+            double mspt = Bukkit.getAverageTickTime();
+            loadMode = mspt >= skipMspt ? LoadMode.SKIP : mspt >= shortenMspt ? LoadMode.SHORTEN : LoadMode.NORMAL;
+        }
 
-        ItemStack[] preGeneratedItems = new ItemStack[ANIMATION_DURATION + 10];
-        ItemStack winningItem = crate.getRandomItem();
+        int bucket = (int) (currentTick & WHEEL_MASK);
+        AnimationInstance head = wheel[bucket];
+        if (head == null && deferred.isEmpty()) return;
 
-        for (int i = 0; i < preGeneratedItems.length - 10; i++) {
-            preGeneratedItems[i] = crate.getRandomItem();
+        // Detach the whole bucket first: frames re-schedule into other buckets while we walk it
+        wheel[bucket] = null;
+        for (AnimationInstance instance = head; instance != null; instance = instance.next) {
+            instance.bucket = -1;
         }
 
-        for (int i = preGeneratedItems.length - 10; i < preGeneratedItems.length; i++) {
-            preGeneratedItems[i] = winningItem;
+        long tickStart = System.nanoTime();
+        int processed = 0;
+
+        // Last tick's leftovers go first, ahead of anything that only became due now
+        int waiting = deferred.size();
+        for (int i = 0; i < waiting; i++) {
+            AnimationInstance instance = deferred.poll();
+            if (instance.isCompleted()) continue;
+
+            if (hasBudget(processed, tickStart)) {
+                processAnimation(instance);
+                processed++;
+            } else {
+                deferred.add(instance);
+            }
         }
 
-        AnimationInstance instance = new AnimationInstance(gui, preGeneratedItems, winningItem);
+        AnimationInstance instance = head;
+        while (instance != null) {
+            AnimationInstance next = instance.next;
+            instance.prev = null;
+            instance.next = null;
+
+            if (!instance.isCompleted()) {
+                if (instance.dueTick > currentTick) {
+                    link(instance); // Not due yet, only possible for gaps longer than the wheel
+                } else if (hasBudget(processed, tickStart)) {
+                    processAnimation(instance);
+                    processed++;
+                } else {
+                    deferred.add(instance);
+                    framesDeferred++;
+                }
+            }
+            instance = next;
+        }
+    }
+
+    // The first frame of a tick always runs, so a tiny budget still moves things along
+    private boolean hasBudget(int processed, long tickStart) {
+        if (processed == 0) return true;
+        if (frameBudget > 0 && processed >= frameBudget) return false;
+        return budgetNanos <= 0 || System.nanoTime() - tickStart < budgetNanos;
+    }
+
+    public void startAnimation(Player player, CrateAnimationInventory gui, Crate crate, AnimationProfile profile) {
+        UUID playerId = player.getUniqueId();
+        stopAnimation(player);
+
+        // One snapshot for the whole opening, admin edits mid-animation don't affect it
+        CrateContents contents = crate.getContents();
+        int winningIndex = contents.getRandomIndex();
+        ItemStack winningItem = winningIndex >= 0 ? contents.getItem(winningIndex).clone() : null;
+        long winningFingerprint = winningIndex >= 0 ? contents.getFingerprint(winningIndex) : ItemFingerprint.UNKNOWN;
+
+        // Frame n shows the reel from position n on, so the last frame stops the winner in the middle slot.
+        // The reel only holds reward indices into the snapshot, the items themselves are never copied.
+        int lastFrame = profile.getFrameCount() - 1;
+        int[] reel = new int[lastFrame + profile.getSlotCount()];
+        for (int i = 0; i < reel.length; i++) {
+            reel[i] = contents.getRandomIndex();
+        }
+        reel[lastFrame + profile.getSlotCount() / 2] = winningIndex;
+
+        AnimationInstance instance = new AnimationInstance(playerId, gui, profile, contents.getItems(), reel, winningItem, winningFingerprint);
+        // Animation tick 0 is the next server tick, the first frame is drawn right then
+        instance.startTick = currentTick + 1;
+        instance.dueTick = instance.startTick + profile.getFrameTick(0);
         activeAnimations.put(playerId, instance);
+        link(instance);
     }
 
     private void processAnimation(AnimationInstance instance) {
-        if (instance.isCompleted()) return;
+        int written = instance.updateAnimation();
+        framesRendered++;
+        slotWrites += written;
+        slotsSkipped += instance.profile.getSlotCount() - written;
 
-        int tick = instance.getCurrentTick();
-        long speed = getAnimationSpeed(tick);
+        int lastFrame = instance.profile.getFrameCount() - 1;
+        if (instance.frame == lastFrame) {
+            activeAnimations.remove(instance.playerId, instance);
+            instance.finishAnimation();
+            return;
+        }
+
+        // Degrading never touches the reel, only how much of it is shown: the last frame, with the
+        // pre-rolled winner in the middle, is always drawn
+        instance.frame++;
+        if (loadMode == LoadMode.SKIP) {
+            framesDropped += lastFrame - instance.frame;
+            instance.frame = lastFrame;
+            instance.startTick = currentTick + 1 - instance.profile.getFrameTick(lastFrame);
+        } else if (loadMode == LoadMode.SHORTEN && instance.frame < lastFrame) {
+            // Jump over the next frame but keep its due tick, so the rest of the spin takes about half as long
+            instance.startTick -= instance.profile.getFrameTick(instance.frame + 1) - instance.profile.getFrameTick(instance.frame);
+            instance.frame++;
+            framesDropped++;
+        }
 
-        if (tick % speed == 0) {
-            instance.updateAnimation();
+        // Behind schedule after waiting for budget: drop the frames that are already late
+        long elapsed = currentTick - instance.startTick;
+        while (instance.frame < lastFrame && instance.profile.getFrameTick(instance.frame + 1) <= elapsed) {
+            instance.frame++;
+            framesDropped++;
         }
 
-        instance.incrementTick();
+        instance.dueTick = Math.max(instance.startTick + instance.profile.getFrameTick(instance.frame), currentTick + 1);
+        link(instance);
+    }
 
-        if (tick >= ANIMATION_DURATION) {
-            instance.finishAnimation();
+    private void link(AnimationInstance instance) {
+        int bucket = (int) (instance.dueTick & WHEEL_MASK);
+        AnimationInstance head = wheel[bucket];
+        instance.bucket = bucket;
+        instance.prev = null;
+        instance.next = head;
+        if (head != null) {
+            head.prev = instance;
         }
+        wheel[bucket] = instance;
     }
 
-    private long getAnimationSpeed(int tick) {
-        if (tick < 40) return 3L;
-        if (tick < 80) return 5L;
-        if (tick < 100) return 8L;
-        if (tick < 120) return 12L;
-        return 20L;
+    private void unlink(AnimationInstance instance) {
+        // Taken off the wheel already, the running tick skips it once it is completed
+        if (instance.bucket < 0) return;
+
+        if (instance.prev != null) {
+            instance.prev.next = instance.next;
+        } else {
+            wheel[instance.bucket] = instance.next;
+        }
+        if (instance.next != null) {
+            instance.next.prev = instance.prev;
+        }
+        instance.prev = null;
+        instance.next = null;
+        instance.bucket = -1;
     }
 
     public void stopAnimation(Player player) {
-        activeAnimations.remove(player.getUniqueId());
+        AnimationInstance instance = activeAnimations.remove(player.getUniqueId());
+        if (instance != null) {
+            instance.completed = true;
+            unlink(instance);
+        }
+    }
+
+    public int getActiveAnimations() {
+        return activeAnimations.size();
+    }
+
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    public long getSlotWrites() {
+        return slotWrites;
+    }
+
+    public long getSlotsSkipped() {
+        return slotsSkipped;
+    }
+
+    public long getFramesDeferred() {
+        return framesDeferred;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    public int getDeferredCount() {
+        return deferred.size();
+    }
+
+    public LoadMode getLoadMode() {
+        return loadMode;
     }
 
     public void shutdown() {
@@ -88,45 +380,49 @@ public class AnimationManager {
             globalAnimationTask.cancel();
         }
         activeAnimations.clear();
+        Arrays.fill(wheel, null);
+        deferred.clear();
     }
 
     private static class AnimationInstance {
+        private final UUID playerId;
         private final CrateAnimationInventory gui;
-        private final ItemStack[] preGeneratedItems;
+        private final AnimationProfile profile;
+        private final List<ItemStack> prototypes;
+        private final int[] reel;
+        private final FrameRenderer renderer;
         private final ItemStack winningItem;
-        private int currentTick = 0;
-        private int itemIndex = 0;
+        private final long winningFingerprint;
+        private int frame = 0;
         private boolean completed = false;
 
-        public AnimationInstance(CrateAnimationInventory gui, ItemStack[] preGeneratedItems, ItemStack winningItem) {
+        // Wheel bookkeeping
+        private long startTick;
+        private long dueTick;
+        private int bucket = -1;
+        private AnimationInstance prev;
+        private AnimationInstance next;
+
+        public AnimationInstance(UUID playerId, CrateAnimationInventory gui, AnimationProfile profile, List<ItemStack> prototypes,
+                                 int[] reel, ItemStack winningItem, long winningFingerprint) {
+            this.playerId = playerId;
             this.gui = gui;
-            this.preGeneratedItems = preGeneratedItems;
+            this.profile = profile;
+            this.prototypes = prototypes;
+            this.reel = reel;
+            this.renderer = new FrameRenderer(gui.getInventory(), profile.getSlots());
             this.winningItem = winningItem;
+            this.winningFingerprint = winningFingerprint;
         }
 
-        public void updateAnimation() {
-            for (int i = 0; i < ANIMATION_SLOTS.length; i++) {
-                int itemIdx = (itemIndex + i) % preGeneratedItems.length;
-                ItemStack item = preGeneratedItems[itemIdx];
-                if (item != null) {
-                    gui.getInventory().setItem(ANIMATION_SLOTS[i], item);
-                }
-            }
-            itemIndex = (itemIndex + 1) % preGeneratedItems.length;
+        public int updateAnimation() {
+            return renderer.render(reel, frame, prototypes);
         }
 
         public void finishAnimation() {
             if (completed) return;
             completed = true;
-            gui.finishAnimation(winningItem);
-        }
-
-        public int getCurrentTick() {
-            return currentTick;
-        }
-
-        public void incrementTick() {
-            currentTick++;
+            gui.finishAnimation(winningItem, winningFingerprint);
         }
 
         public boolean isCompleted() {
@@ -0,0 +1,142 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import pl.polardev.scase.CasePlugin;
+
+import java.util.Arrays;
+
+// Crate placements stored in the chunk's own PDC: packed positions (CrateBlockIndex.pack) plus a parallel,
+// comma separated list of crate names. Crate names can't contain commas, so no escaping is needed.
+// The chunk is the only thing that has to be loaded to know its crates - no tile entity involved.
+public class ChunkCrateMarkers {
+    private static final String SEPARATOR = ",";
+
+    private final NamespacedKey positionsKey;
+    private final NamespacedKey namesKey;
+    private final NamespacedKey legacyScannedKey;
+
+    public record Markers(long[] positions, String[] crateNames) {
+        public int size() {
+            return positions.length;
+        }
+    }
+
+    public ChunkCrateMarkers(CasePlugin plugin) {
+        this.positionsKey = new NamespacedKey(plugin, "crate_blocks");
+        this.namesKey = new NamespacedKey(plugin, "crate_block_names");
+        this.legacyScannedKey = new NamespacedKey(plugin, "legacy_scanned");
+    }
+
+    // Cheap check first - the vast majority of chunks have no crates at all
+    public boolean hasMarkers(Chunk chunk) {
+        return chunk.getPersistentDataContainer().has(positionsKey);
+    }
+
+    // Set once a chunk's tile entities were checked for pre-marker crates, so that happens once per chunk
+    public boolean isLegacyScanned(Chunk chunk) {
+        return chunk.getPersistentDataContainer().has(legacyScannedKey);
+    }
+
+    public void markLegacyScanned(Chunk chunk) {
+        chunk.getPersistentDataContainer().set(legacyScannedKey, PersistentDataType.BOOLEAN, true);
+    }
+
+    public Markers read(Chunk chunk) {
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        long[] positions = container.get(positionsKey, PersistentDataType.LONG_ARRAY);
+        String names = container.get(namesKey, PersistentDataType.STRING);
+        if (positions == null || names == null) return null;
+
+        String[] crateNames = names.split(SEPARATOR, -1);
+        if (crateNames.length != positions.length) {
+            // Only a hand-edited chunk gets here; keep the part that still lines up
+            int size = Math.min(crateNames.length, positions.length);
+            return new Markers(Arrays.copyOf(positions, size), Arrays.copyOf(crateNames, size));
+        }
+        return new Markers(positions, crateNames);
+    }
+
+    public void add(Block block, String crateName) {
+        Chunk chunk = block.getChunk();
+        long position = CrateBlockIndex.pack(block.getX(), block.getY(), block.getZ());
+        Markers markers = read(chunk);
+
+        if (markers == null) {
+            write(chunk, new long[]{position}, new String[]{crateName});
+            return;
+        }
+
+        int existing = indexOf(markers.positions(), position);
+        if (existing >= 0) {
+            markers.crateNames()[existing] = crateName;
+            write(chunk, markers.positions(), markers.crateNames());
+            return;
+        }
+
+        long[] positions = Arrays.copyOf(markers.positions(), markers.size() + 1);
+        String[] crateNames = Arrays.copyOf(markers.crateNames(), markers.size() + 1);
+        positions[markers.size()] = position;
+        crateNames[markers.size()] = crateName;
+        write(chunk, positions, crateNames);
+    }
+
+    public boolean remove(Block block) {
+        Chunk chunk = block.getChunk();
+        Markers markers = read(chunk);
+        if (markers == null) return false;
+
+        int index = indexOf(markers.positions(), CrateBlockIndex.pack(block.getX(), block.getY(), block.getZ()));
+        if (index < 0) return false;
+
+        int size = markers.size() - 1;
+        long[] positions = new long[size];
+        String[] crateNames = new String[size];
+        System.arraycopy(markers.positions(), 0, positions, 0, index);
+        System.arraycopy(markers.positions(), index + 1, positions, index, size - index);
+        System.arraycopy(markers.crateNames(), 0, crateNames, 0, index);
+        System.arraycopy(markers.crateNames(), index + 1, crateNames, index, size - index);
+        write(chunk, positions, crateNames);
+        return true;
+    }
+
+    // Writes back only the markers whose keep flag is set and returns how many were dropped
+    public int retain(Chunk chunk, Markers markers, boolean[] keep) {
+        long[] positions = new long[markers.size()];
+        String[] crateNames = new String[markers.size()];
+        int kept = 0;
+        for (int i = 0; i < markers.size(); i++) {
+            if (!keep[i]) continue;
+
+            positions[kept] = markers.positions()[i];
+            crateNames[kept] = markers.crateNames()[i];
+            kept++;
+        }
+
+        if (kept < markers.size()) {
+            write(chunk, Arrays.copyOf(positions, kept), Arrays.copyOf(crateNames, kept));
+        }
+        return markers.size() - kept;
+    }
+
+    private void write(Chunk chunk, long[] positions, String[] crateNames) {
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        if (positions.length == 0) {
+            container.remove(positionsKey);
+            container.remove(namesKey);
+            return;
+        }
+        container.set(positionsKey, PersistentDataType.LONG_ARRAY, positions);
+        container.set(namesKey, PersistentDataType.STRING, String.join(SEPARATOR, crateNames));
+    }
+
+    private static int indexOf(long[] positions, long position) {
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] == position) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,114 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import pl.polardev.scase.helper.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Crate blocks by position: one primitive table per world, keyed by the block position packed into a long.
+// Lookups touch no BlockState and allocate nothing, so every right-click on the server can afford one.
+// Main thread only.
+public class CrateBlockIndex {
+    private static final int NO_CRATE = -1;
+
+    private final CrateIdRegistry crateIds;
+    private final Map<UUID, LongIntHashMap> worlds = new HashMap<>();
+
+    private long lookups;
+    private long hits;
+
+    public CrateBlockIndex(CrateIdRegistry crateIds) {
+        this.crateIds = crateIds;
+    }
+
+    // Same layout as vanilla's block positions: 26 bits x, 26 bits z, 12 bits y
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+    // Lower-case crate name, or null when the block is not a known crate
+    public String get(Block block) {
+        lookups++;
+        LongIntHashMap blocks = worlds.get(block.getWorld().getUID());
+        if (blocks == null) return null;
+
+        int crateId = blocks.get(pack(block.getX(), block.getY(), block.getZ()));
+        if (crateId == NO_CRATE) return null;
+
+        hits++;
+        return crateIds.nameOf(crateId);
+    }
+
+    public void put(Block block, String crateName) {
+        put(block.getWorld(), block.getX(), block.getY(), block.getZ(), crateName);
+    }
+
+    public void put(World world, int x, int y, int z, String crateName) {
+        put(world, pack(x, y, z), crateName);
+    }
+
+    public void put(World world, long position, String crateName) {
+        worlds.computeIfAbsent(world.getUID(), id -> new LongIntHashMap(NO_CRATE))
+            .put(position, crateIds.idOf(crateName));
+    }
+
+    public boolean remove(Block block) {
+        return remove(block.getWorld(), pack(block.getX(), block.getY(), block.getZ()));
+    }
+
+    public boolean remove(World world, long position) {
+        LongIntHashMap blocks = worlds.get(world.getUID());
+        return blocks != null && blocks.remove(position) != NO_CRATE;
+    }
+
+    // Blocks of one crate in loaded chunks - the only ones the index knows about
+    public List<Block> getBlocks(String crateName) {
+        int crateId = crateIds.idOf(crateName);
+        List<Block> blocks = new ArrayList<>();
+        worlds.forEach((worldId, positions) -> {
+            World world = Bukkit.getWorld(worldId);
+            if (world == null) return;
+
+            positions.forEach((position, id) -> {
+                if (id == crateId) {
+                    blocks.add(world.getBlockAt(unpackX(position), unpackY(position), unpackZ(position)));
+                }
+            });
+        });
+        return blocks;
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongIntHashMap blocks : worlds.values()) {
+            size += blocks.size();
+        }
+        return size;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+}
@@ -0,0 +1,108 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitTask;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ChatHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Repairs crate markers in every chunk that was loaded when it started, a few chunks per tick.
+// Only chunks are remembered, never Chunk objects, so nothing is kept loaded; chunks that unload
+// before their turn are skipped - loading them again goes through the normal marker checks.
+public class CrateBlockSweep {
+    private static final long PROGRESS_INTERVAL_NANOS = 2_000_000_000L;
+
+    private record ChunkRef(UUID worldId, int x, int z) {
+    }
+
+    private final CasePlugin plugin;
+    private final CommandSender sender;
+    private final List<ChunkRef> chunks;
+    private final long budgetNanos;
+
+    private BukkitTask task;
+    private int position;
+    private int migrated;
+    private int removed;
+    private int skipped;
+    private int ticks;
+    private long startedAt;
+    private long lastProgressAt;
+
+    public CrateBlockSweep(CasePlugin plugin, CommandSender sender) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.budgetNanos = Math.max(100_000L, (long) (plugin.getConfig().getDouble("crates.sweep-budget-ms", 2.0) * 1_000_000));
+
+        this.chunks = new ArrayList<>();
+        for (World world : plugin.getServer().getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                chunks.add(new ChunkRef(world.getUID(), chunk.getX(), chunk.getZ()));
+            }
+        }
+    }
+
+    public void start() {
+        startedAt = System.nanoTime();
+        lastProgressAt = startedAt;
+        ChatHelper.reply(sender, "<yellow>Sweep", "<gray>Checking <gold>" + chunks.size() + "<gray> loaded chunks");
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+        ticks++;
+
+        while (position < chunks.size() && System.nanoTime() - tickStart < budgetNanos) {
+            ChunkRef ref = chunks.get(position++);
+            World world = Bukkit.getWorld(ref.worldId());
+            if (world == null || !world.isChunkLoaded(ref.x(), ref.z())) {
+                skipped++;
+                continue;
+            }
+
+            CrateManager.ChunkRepair repair = plugin.getCrateManager().repairChunk(world.getChunkAt(ref.x(), ref.z()));
+            migrated += repair.migrated();
+            removed += repair.removed();
+        }
+
+        long now = System.nanoTime();
+        if (position >= chunks.size()) {
+            finish(now);
+        } else if (now - lastProgressAt >= PROGRESS_INTERVAL_NANOS) {
+            lastProgressAt = now;
+            ChatHelper.reply(sender, "<yellow>Sweep", getProgress());
+        }
+    }
+
+    private void finish(long now) {
+        task.cancel();
+        task = null;
+        ChatHelper.reply(sender, "<green>Success", "<gray>Sweep done in <gold>" + ticks + "<gray> ticks ("
+            + String.format("%.1f", (now - startedAt) / 1_000_000.0) + "ms): <gold>" + migrated
+            + "<gray> migrated, <gold>" + removed + "<gray> stale removed, <gold>" + skipped + "<gray> chunks unloaded meanwhile");
+    }
+
+    public void cancel() {
+        if (task == null) return;
+
+        task.cancel();
+        task = null;
+        ChatHelper.reply(sender, "<yellow>Sweep", "<gray>Cancelled at " + getProgress());
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    public String getProgress() {
+        return "<gold>" + position + "<gray>/<gold>" + chunks.size() + "<gray> chunks, <gold>" + migrated
+            + "<gray> migrated, <gold>" + removed + "<gray> stale removed";
+    }
+}
@@ -0,0 +1,46 @@
+package pl.polardev.scase.manager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dense int ids for crate names, shared by everything that keeps per-crate counters in plain arrays.
+// Ids are never reused and only live for one run - anything persisted stores the name.
+public class CrateIdRegistry {
+    // Holds both the lower-case name and every spelling callers have used, so lookups don't lowercase
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+
+    public int idOf(String crateName) {
+        Integer id = ids.get(crateName);
+        return id != null ? id : intern(crateName);
+    }
+
+    private synchronized int intern(String crateName) {
+        String lowerName = crateName.toLowerCase();
+        Integer id = ids.get(lowerName);
+        if (id == null) {
+            id = names.length;
+            String[] grown = Arrays.copyOf(names, id + 1);
+            grown[id] = lowerName;
+            names = grown;
+            ids.put(lowerName, id);
+        }
+        ids.put(crateName, id);
+        return id;
+    }
+
+    // Lower-case names indexed by id; the array is replaced, never modified, so it can be kept as a snapshot
+    public String[] names() {
+        return names;
+    }
+
+    // Reads the current array, so an id handed out after a names() snapshot was taken still resolves
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return names.length;
+    }
+}
@@ -1,19 +1,38 @@
 package pl.polardev.scase.manager;
 
-import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.NamespacedKey;
 import org.bukkit.persistence.PersistentDataType;
 import pl.polardev.scase.CasePlugin;
 import pl.polardev.scase.helper.ItemBuilder;
+import pl.polardev.scase.helper.ItemFingerprint;
 import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+import pl.polardev.scase.storage.AtomicFileWriter;
+import pl.polardev.scase.storage.BinaryCrateCodec;
+import pl.polardev.scase.storage.CrateFileWatcher;
+import pl.polardev.scase.storage.CrateSaveQueue;
+import pl.polardev.scase.storage.CrateStore;
+import pl.polardev.scase.storage.CrateTombstones;
+import pl.polardev.scase.storage.FileCrateStore;
+import pl.polardev.scase.storage.KeyLedgerStore;
+import pl.polardev.scase.storage.OpeningJournal;
+import pl.polardev.scase.storage.SqliteCrateStore;
+import pl.polardev.scase.storage.YamlCrateCodec;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
@@ -25,43 +44,96 @@ public class CrateManager {
         }
     }
 
+    public record BulkOpenResult(int opened, List<ItemStack> rewards) {
+        public static final BulkOpenResult EMPTY = new BulkOpenResult(0, List.of());
+    }
+
+    public record ChunkRepair(int migrated, int removed) {
+    }
+
+    public static final int MAX_BULK_OPEN = 1000;
+
     private final CasePlugin plugin;
     private final File dataFolder;
+    private final File exportFolder;
+    private final File importFolder;
     private final NamespacedKey crateKey;
     private final Map<String, Crate> crates;
-    private final Map<String, NamespacedKey> keyCache;
-    private final Map<UUID, Map<String, Integer>> playerKeyCache;
-    private static final int CACHE_CLEANUP_INTERVAL = 6000;
-    private int cacheCleanupCounter = 0;
+    private final YamlCrateCodec yamlCodec;
+    private final CrateStore store;
+    private final CrateSaveQueue saveQueue;
+    private final CrateIdRegistry crateIds;
+    private final KeyLedger keyLedger;
+    private final PhysicalKeyIndex physicalKeys;
+    private final CrateBlockIndex blockIndex;
+    private final ChunkCrateMarkers chunkMarkers;
+    private final CrateTombstones tombstones;
+    private final boolean legacyTileScan;
+    private long legacyBlocksMigrated;
+    private long staleMarkersRemoved;
+    // The sweep only drops markers of crates that don't exist once a full load worked - until then every
+    // crate looks unknown
+    private volatile boolean cratesLoaded;
+    // Crates whose file failed to decode on the last full load - their blocks must survive a sweep
+    private volatile Set<String> unreadableCrates = Set.of();
+    private CrateBlockSweep sweep;
+    private CrateFileWatcher fileWatcher;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 10000;
+    public static final Set<String> STORE_TYPES = Set.of("file", "sqlite");
 
     public CrateManager(CasePlugin plugin) {
         this.plugin = plugin;
         this.dataFolder = new File(plugin.getDataFolder(), "cases");
+        this.exportFolder = new File(plugin.getDataFolder(), "export");
+        this.importFolder = new File(plugin.getDataFolder(), "import");
         this.crateKey = new NamespacedKey(plugin, "crate_name");
         this.crates = new ConcurrentHashMap<>();
-        this.keyCache = new ConcurrentHashMap<>();
-        this.playerKeyCache = new ConcurrentHashMap<>();
 
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
+        if (!importFolder.exists()) {
+            importFolder.mkdirs();
+        }
 
-        loadAllCrates();
-        startCacheCleanupTask();
-    }
+        this.yamlCodec = new YamlCrateCodec();
+        this.store = createStore(plugin.getConfig().getString("storage.type", "file"));
+        try {
+            store.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open " + store.getType() + " crate store", e);
+        }
+        this.saveQueue = new CrateSaveQueue(plugin, store);
 
-    private void startCacheCleanupTask() {
-        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
-            if (++cacheCleanupCounter >= CACHE_CLEANUP_INTERVAL) {
-                cleanupCaches();
-                cacheCleanupCounter = 0;
-            }
-        }, 1200L, 1200L);
-    }
+        KeyLedgerStore keyStore = new KeyLedgerStore(new File(plugin.getDataFolder(), "keys"),
+            AtomicFileWriter.SyncMode.parse(plugin.getConfig().getString("storage.fsync", "batch")));
+        try {
+            keyStore.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open virtual key storage", e);
+        }
+        this.crateIds = new CrateIdRegistry();
+        this.keyLedger = new KeyLedger(plugin, keyStore, crateIds);
+        this.physicalKeys = new PhysicalKeyIndex(plugin, crateIds, crates::values);
+        this.blockIndex = new CrateBlockIndex(crateIds);
+        this.chunkMarkers = new ChunkCrateMarkers(plugin);
+        this.tombstones = new CrateTombstones(plugin.getDataFolder().toPath(),
+            AtomicFileWriter.SyncMode.parse(plugin.getConfig().getString("storage.fsync", "batch")));
+        try {
+            tombstones.load();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read deleted crates, their blocks in unloaded chunks are kept", e);
+        }
+        this.legacyTileScan = plugin.getConfig().getBoolean("crates.legacy-tile-scan", true);
 
-    private void cleanupCaches() {
-        playerKeyCache.entrySet().removeIf(entry ->
-            plugin.getServer().getPlayer(entry.getKey()) == null);
+        loadAllCrates();
+        // Chunks loaded before we were enabled (spawn, /reload) never fire a ChunkLoadEvent for us
+        for (World world : plugin.getServer().getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                loadChunk(chunk);
+            }
+        }
+        startFileWatcher();
     }
 
     public void createCrate(String name, Block block) throws CrateValidationException {
@@ -77,18 +149,21 @@ public class CrateManager {
 
         Crate crate = new Crate(name, crateItem);
         crates.put(name.toLowerCase(), crate);
+        forgetTombstone(name.toLowerCase());
 
         saveCrate(crate);
         setCrateBlock(block, name);
     }
 
+    // Any block can be a crate: the placement lives in the chunk's PDC, not in a tile entity
     public void setCrateBlock(Block block, String crateName) {
-        if (block.getState() instanceof org.bukkit.block.TileState tileState) {
-            tileState.getPersistentDataContainer().set(crateKey, PersistentDataType.STRING, crateName);
-            tileState.update();
-        } else {
-            plugin.getLogger().warning("Cannot set crate data on block type: " + block.getType() + " - not a tile entity");
-        }
+        chunkMarkers.add(block, crateName);
+        blockIndex.put(block, crateName);
+    }
+
+    public boolean removeCrateBlock(Block block) {
+        boolean marked = chunkMarkers.remove(block);
+        return blockIndex.remove(block) || marked;
     }
 
     public boolean deleteCrate(String name) {
@@ -97,11 +172,27 @@ public class CrateManager {
             return false;
         }
 
-        crates.remove(lowerName);
+        Crate removed = crates.remove(lowerName);
+        if (removed != null) {
+            saveQueue.delete(removed.getName());
+        }
 
-        File crateFile = new File(dataFolder, name + ".yml");
-        if (crateFile.exists()) {
-            crateFile.delete();
+        // Blocks in loaded chunks go right away, the tombstone takes care of the rest when their chunks load
+        try {
+            tombstones.add(lowerName);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to record deleted crate " + name
+                + ", its blocks in unloaded chunks stay until /admincase sweep", e);
+        }
+
+        int cleared = 0;
+        for (Block block : blockIndex.getBlocks(lowerName)) {
+            if (removeCrateBlock(block)) {
+                cleared++;
+            }
+        }
+        if (cleared > 0) {
+            plugin.getLogger().info("Cleared " + cleared + " blocks of deleted crate " + name);
         }
 
         return true;
@@ -119,74 +210,259 @@ public class CrateManager {
         return crates.containsKey(name.toLowerCase());
     }
 
+    // Index lookup only - the clicked block's chunk is loaded, so its markers are in the index
     public String getCrateNameFromBlock(Block block) {
-        if (block.getState() instanceof org.bukkit.block.TileState tileState) {
-            return tileState.getPersistentDataContainer().get(crateKey, PersistentDataType.STRING);
+        return blockIndex.get(block);
+    }
+
+    public void loadChunk(Chunk chunk) {
+        if (chunkMarkers.hasMarkers(chunk)) {
+            ChunkCrateMarkers.Markers markers = chunkMarkers.read(chunk);
+            if (markers == null) return;
+
+            World world = chunk.getWorld();
+            boolean[] keep = null;
+            for (int i = 0; i < markers.size(); i++) {
+                String crateName = markers.crateNames()[i];
+                // Markers of crates that are only missing are indexed too: their blocks stay protected and
+                // inert until the crate is back. Only a deleted crate's markers are dropped.
+                if (tombstones.contains(crateName.toLowerCase())) {
+                    if (keep == null) {
+                        keep = new boolean[markers.size()];
+                        Arrays.fill(keep, true);
+                    }
+                    keep[i] = false;
+                    continue;
+                }
+                blockIndex.put(world, markers.positions()[i], crateName);
+            }
+
+            if (keep != null) {
+                staleMarkersRemoved += chunkMarkers.retain(chunk, markers, keep);
+            }
+        } else if (legacyTileScan && !chunkMarkers.isLegacyScanned(chunk)) {
+            migrateLegacyTiles(chunk);
+            // Until the crates are loaded every legacy tile looks unknown, those chunks get checked again
+            if (cratesLoaded) {
+                chunkMarkers.markLegacyScanned(chunk);
+            }
         }
-        return null;
     }
 
-    public boolean hasKey(Player player, String crateName) {
-        return getKeyAmount(player, crateName) > 0;
+    public void unloadChunk(Chunk chunk) {
+        if (!chunkMarkers.hasMarkers(chunk)) return;
+
+        ChunkCrateMarkers.Markers markers = chunkMarkers.read(chunk);
+        if (markers == null) return;
+
+        World world = chunk.getWorld();
+        for (long position : markers.positions()) {
+            blockIndex.remove(world, position);
+        }
     }
 
-    public int getKeyAmount(Player player, String crateName) {
-        UUID playerId = player.getUniqueId();
-        String lowerCrateName = crateName.toLowerCase();
+    // Crates placed before chunk markers existed only have the name in their tile entity's PDC.
+    // They are moved into the chunk markers once, and every chunk is flagged after its first scan, so a chunk
+    // is scanned at most once whether it had crates or not.
+    // Tiles of crates that don't exist are left alone rather than turned into markers.
+    private int migrateLegacyTiles(Chunk chunk) {
+        int migrated = 0;
+        for (BlockState state : chunk.getTileEntities(false)) {
+            if (!(state instanceof org.bukkit.block.TileState tileState)) continue;
+
+            String crateName = tileState.getPersistentDataContainer().get(crateKey, PersistentDataType.STRING);
+            if (crateName == null || !isKnownCrate(crateName.toLowerCase())) continue;
+
+            setCrateBlock(state.getBlock(), crateName);
+            // Not a snapshot, so this edits the tile entity itself
+            tileState.getPersistentDataContainer().remove(crateKey);
+            migrated++;
+        }
+        legacyBlocksMigrated += migrated;
+        return migrated;
+    }
+
+    private boolean isKnownCrate(String lowerName) {
+        return crates.containsKey(lowerName) || unreadableCrates.contains(lowerName);
+    }
 
-        Map<String, Integer> playerKeys = playerKeyCache.get(playerId);
-        if (playerKeys != null && playerKeys.containsKey(lowerCrateName)) {
-            return playerKeys.get(lowerCrateName);
+    // Used by the sweep: migrates legacy tiles regardless of crates.legacy-tile-scan and drops markers of
+    // crates that no longer exist or whose block was removed without an event (WorldEdit, other plugins)
+    public ChunkRepair repairChunk(Chunk chunk) {
+        int migrated = migrateLegacyTiles(chunk);
+        if (cratesLoaded && !chunkMarkers.isLegacyScanned(chunk)) {
+            chunkMarkers.markLegacyScanned(chunk);
         }
 
-        NamespacedKey keyKey = getOrCreateKeyNamespace(lowerCrateName);
-        int amount = player.getPersistentDataContainer().getOrDefault(keyKey, PersistentDataType.INTEGER, 0);
+        ChunkCrateMarkers.Markers markers = chunkMarkers.read(chunk);
+        if (markers == null) return new ChunkRepair(migrated, 0);
 
-        playerKeys = playerKeyCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
-        playerKeys.put(lowerCrateName, amount);
+        World world = chunk.getWorld();
+        boolean[] keep = new boolean[markers.size()];
+        for (int i = 0; i < markers.size(); i++) {
+            long position = markers.positions()[i];
+            Block block = world.getBlockAt(CrateBlockIndex.unpackX(position), CrateBlockIndex.unpackY(position),
+                CrateBlockIndex.unpackZ(position));
 
-        return amount;
+            keep[i] = (!cratesLoaded || isKnownCrate(markers.crateNames()[i].toLowerCase())) && !block.getType().isAir();
+            if (!keep[i]) {
+                blockIndex.remove(world, position);
+            }
+        }
+
+        int removed = chunkMarkers.retain(chunk, markers, keep);
+        staleMarkersRemoved += removed;
+        return new ChunkRepair(migrated, removed);
     }
 
-    public void giveKey(Player player, String crateName, int amount) {
-        if (amount <= 0) return;
+    public boolean startSweep(CommandSender sender) {
+        if (sweep != null && sweep.isRunning()) return false;
+
+        sweep = new CrateBlockSweep(plugin, sender);
+        sweep.start();
+        return true;
+    }
 
-        UUID playerId = player.getUniqueId();
-        String lowerCrateName = crateName.toLowerCase();
+    public CrateBlockSweep getSweep() {
+        return sweep != null && sweep.isRunning() ? sweep : null;
+    }
 
-        int currentAmount = getKeyAmount(player, crateName);
-        int newAmount = currentAmount + amount;
+    public long getStaleMarkersRemoved() {
+        return staleMarkersRemoved;
+    }
 
-        NamespacedKey keyKey = getOrCreateKeyNamespace(lowerCrateName);
-        player.getPersistentDataContainer().set(keyKey, PersistentDataType.INTEGER, newAmount);
+    public long getLegacyBlocksMigrated() {
+        return legacyBlocksMigrated;
+    }
 
-        Map<String, Integer> playerKeys = playerKeyCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
-        playerKeys.put(lowerCrateName, newAmount);
+    public CrateBlockIndex getBlockIndex() {
+        return blockIndex;
+    }
+
+    public boolean hasKey(Player player, String crateName) {
+        return getKeyAmount(player, crateName) > 0;
+    }
+
+    public int getKeyAmount(Player player, String crateName) {
+        return keyLedger.getBalance(player, crateName);
+    }
+
+    public void giveKey(Player player, String crateName, int amount) {
+        keyLedger.credit(player, crateName, amount);
     }
 
     public void removeKey(Player player, String crateName, int amount) {
-        if (amount <= 0) return;
+        keyLedger.debitUpTo(player, crateName, amount);
+    }
 
-        UUID playerId = player.getUniqueId();
-        String lowerCrateName = crateName.toLowerCase();
+    public boolean takeKeys(Player player, String crateName, int amount) {
+        return keyLedger.debit(player, crateName, amount);
+    }
 
-        int currentAmount = getKeyAmount(player, crateName);
-        int newAmount = Math.max(0, currentAmount - amount);
+    public BulkOpenResult openBulk(Player player, Crate crate, int requested) {
+        CrateContents contents = crate.getContents();
+        if (!contents.hasItems() || contents.getKeyItem() == null || requested <= 0) {
+            return BulkOpenResult.EMPTY;
+        }
 
-        NamespacedKey keyKey = getOrCreateKeyNamespace(lowerCrateName);
-        player.getPersistentDataContainer().set(keyKey, PersistentDataType.INTEGER, newAmount);
+        PlayerInventory inventory = player.getInventory();
+        int amount = physicalKeys.takeKeys(player, crate, Math.min(requested, MAX_BULK_OPEN));
+        if (amount <= 0) {
+            return BulkOpenResult.EMPTY;
+        }
 
-        Map<String, Integer> playerKeys = playerKeyCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>());
-        playerKeys.put(lowerCrateName, newAmount);
+        int[] hits = new int[contents.getItemCount()];
+        for (int i = 0; i < amount; i++) {
+            hits[contents.getRandomIndex()]++;
+        }
+
+        // One journal record per distinct reward, the shared snapshot items are never mutated
+        OpeningJournal journal = plugin.getOpeningJournal();
+        for (int index = 0; index < hits.length; index++) {
+            if (hits[index] > 0) {
+                journal.record(player, crate, contents.getItem(index), contents.getFingerprint(index),
+                    hits[index], OpeningJournal.OpenMode.BULK);
+            }
+        }
+
+        List<ItemStack> rewards = mergeRewards(contents, hits);
+        if (!rewards.isEmpty()) {
+            // addItem may shrink the stacks it is given, so hand it copies and keep the summary intact
+            ItemStack[] delivery = new ItemStack[rewards.size()];
+            for (int i = 0; i < delivery.length; i++) {
+                delivery[i] = rewards.get(i).clone();
+            }
+            inventory.addItem(delivery).values()
+                .forEach(excess -> player.getWorld().dropItem(player.getLocation(), excess));
+            physicalKeys.invalidate(player);
+        }
+
+        return new BulkOpenResult(amount, rewards);
     }
 
-    private NamespacedKey getOrCreateKeyNamespace(String crateName) {
-        return keyCache.computeIfAbsent(crateName,
-            name -> new NamespacedKey(plugin, "crate_key_" + name));
+    private List<ItemStack> mergeRewards(CrateContents contents, int[] hits) {
+        List<ItemStack> prototypes = new ArrayList<>();
+        long[] prototypeFingerprints = new long[hits.length];
+        List<Integer> totals = new ArrayList<>();
+
+        for (int index = 0; index < hits.length; index++) {
+            if (hits[index] == 0) continue;
+
+            ItemStack reward = contents.getItem(index);
+            long fingerprint = contents.getFingerprint(index);
+            int units = reward.getAmount() * hits[index];
+
+            int group = -1;
+            for (int i = 0; i < prototypes.size(); i++) {
+                if (ItemFingerprint.matches(prototypes.get(i), prototypeFingerprints[i], reward, fingerprint)) {
+                    group = i;
+                    break;
+                }
+            }
+
+            if (group >= 0) {
+                totals.set(group, totals.get(group) + units);
+            } else {
+                prototypeFingerprints[prototypes.size()] = fingerprint;
+                prototypes.add(reward);
+                totals.add(units);
+            }
+        }
+
+        List<ItemStack> stacks = new ArrayList<>();
+        for (int i = 0; i < prototypes.size(); i++) {
+            ItemStack prototype = prototypes.get(i);
+            int maxStack = Math.max(1, prototype.getMaxStackSize());
+            int remaining = totals.get(i);
+            while (remaining > 0) {
+                int stackSize = Math.min(remaining, maxStack);
+                stacks.add(prototype.asQuantity(stackSize));
+                remaining -= stackSize;
+            }
+        }
+        return stacks;
+    }
+
+    public void preloadPlayer(UUID playerId) {
+        keyLedger.preload(playerId);
+    }
+
+    public void handlePlayerJoin(Player player) {
+        keyLedger.handleJoin(player);
+        physicalKeys.handleJoin(player);
+    }
+
+    public void handlePlayerQuit(Player player) {
+        keyLedger.handleQuit(player.getUniqueId());
+        physicalKeys.handleQuit(player.getUniqueId());
+    }
+
+    public PhysicalKeyIndex getPhysicalKeyIndex() {
+        return physicalKeys;
     }
 
-    public void invalidatePlayerCache(Player player) {
-        playerKeyCache.remove(player.getUniqueId());
+    public KeyLedger getKeyLedger() {
+        return keyLedger;
     }
 
     private void validateCrateName(String name) throws CrateValidationException {
@@ -203,98 +479,265 @@ public class CrateManager {
         }
     }
 
+    public CrateStore createStore(String type) {
+        if ("sqlite".equalsIgnoreCase(type)) {
+            return new SqliteCrateStore(plugin,
+                new File(plugin.getDataFolder(), plugin.getConfig().getString("storage.sqlite.file", "crates.db")),
+                plugin.getConfig().getInt("storage.sqlite.history-limit", 20));
+        }
+
+        BinaryCrateCodec binaryCodec = new BinaryCrateCodec(plugin.getConfig().getBoolean("storage.compression", true));
+        boolean binary = "binary".equalsIgnoreCase(plugin.getConfig().getString("storage.format", "yaml"));
+        return new FileCrateStore(plugin, dataFolder,
+            binary ? binaryCodec : yamlCodec,
+            binary ? yamlCodec : binaryCodec,
+            AtomicFileWriter.SyncMode.parse(plugin.getConfig().getString("storage.fsync", "batch")));
+    }
+
     public void loadAllCrates() {
-        crates.clear();
+        long started = System.nanoTime();
 
-        if (!dataFolder.exists()) {
+        CrateStore.LoadResult result;
+        try {
+            result = store.loadAll();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load crates from " + store.getType() + " store, keeping previously loaded crates", e);
             return;
         }
 
-        File[] files = dataFolder.listFiles((dir, name) -> name.endsWith(".yml"));
-        if (files == null) {
-            return;
-        }
+        publish(result, true);
+        plugin.getLogger().info(String.format("Loaded %d crates from %s store in %.1fms",
+            result.crates().size(), store.getType(), (System.nanoTime() - started) / 1_000_000.0));
+    }
 
-        for (File file : files) {
-            try {
-                YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-                String name = file.getName().replace(".yml", "");
+    // Existing crates get their contents swapped in place, so getCrate never returns null mid-reload
+    // and open GUIs keep pointing at the live crate; a crate that failed to decode keeps its previous version.
+    // Crates with edits the store hasn't got yet are left alone - memory is newer than what was read.
+    private void publish(CrateStore.LoadResult result, boolean removeMissing) {
+        Map<String, Crate> loaded = result.crates();
+        for (Map.Entry<String, Crate> entry : loaded.entrySet()) {
+            Crate crate = crates.get(entry.getKey());
+            if (crate != null) {
+                if (saveQueue.hasUnsavedChanges(crate)) continue;
+                crate.replaceContents(entry.getValue().getContents());
+            } else {
+                crate = entry.getValue();
+                crates.put(entry.getKey(), crate);
+                // Its file was put back after a delete
+                forgetTombstone(entry.getKey());
+            }
 
-                Crate crate = loadCrateFromConfig(name, config);
-                if (crate != null) {
-                    crates.put(name.toLowerCase(), crate);
-                }
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Failed to load crate from file: " + file.getName(), e);
+            if (result.stale().contains(entry.getKey())) {
+                saveQueue.markDirty(crate);
+            } else {
+                saveQueue.markClean(crate);
             }
+            stampKeyItem(crate);
         }
 
-        plugin.getLogger().info("Loaded " + crates.size() + " crates");
+        if (removeMissing) {
+            unreadableCrates = Set.copyOf(result.failed());
+            cratesLoaded = true;
+            for (String name : List.copyOf(crates.keySet())) {
+                if (!loaded.containsKey(name) && !result.failed().contains(name)
+                        && !saveQueue.hasUnsavedChanges(crates.get(name))) {
+                    removeLoadedCrate(name);
+                }
+            }
+        }
     }
 
-    private Crate loadCrateFromConfig(String name, YamlConfiguration config) {
+    private void forgetTombstone(String lowerName) {
         try {
-            ItemStack displayItem = config.getItemStack("display-item");
-            if (displayItem == null) {
-                plugin.getLogger().warning("No display item found for crate: " + name);
-                return null;
-            }
+            tombstones.remove(lowerName);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to clear the deleted mark of crate " + lowerName, e);
+        }
+    }
 
-            Crate crate = new Crate(name, displayItem);
+    private void removeLoadedCrate(String lowerName) {
+        Crate removed = crates.remove(lowerName);
+        if (removed != null) {
+            saveQueue.forget(removed.getName());
+        }
+    }
 
-            ItemStack keyItem = config.getItemStack("key-item");
-            if (keyItem != null) {
-                crate.setKeyItem(keyItem);
-            }
+    private void startFileWatcher() {
+        if (!(store instanceof FileCrateStore fileStore) || !plugin.getConfig().getBoolean("storage.watch", true)) {
+            return;
+        }
 
-            ConfigurationSection itemsSection = config.getConfigurationSection("items");
-            if (itemsSection != null) {
-                for (String key : itemsSection.getKeys(false)) {
-                    ItemStack item = itemsSection.getItemStack(key);
-                    if (item != null) {
-                        crate.addItem(item);
+        fileWatcher = new CrateFileWatcher(plugin, fileStore, new CrateFileWatcher.ChangeListener() {
+            @Override
+            public void onCratesChanged(Map<String, Crate> changed, Set<String> removed) {
+                publish(new CrateStore.LoadResult(changed, Set.of(), Set.of()), false);
+                for (String name : removed) {
+                    Crate crate = crates.get(name);
+                    if (crate != null && !saveQueue.hasUnsavedChanges(crate)) {
+                        removeLoadedCrate(name);
                     }
                 }
+                plugin.getLogger().info("Hot reloaded " + changed.size() + " changed and " + removed.size() + " removed crates");
+            }
+
+            @Override
+            public void onFullReloadNeeded() {
+                reload();
             }
+        });
 
-            return crate;
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error loading crate: " + name, e);
-            return null;
+        try {
+            fileWatcher.start();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Crate file watching unavailable, use /admincase reload after editing files", e);
+            fileWatcher = null;
         }
     }
 
-    public void saveCrate(Crate crate) {
-        try {
-            File crateFile = new File(dataFolder, crate.getName() + ".yml");
-            YamlConfiguration config = new YamlConfiguration();
+    // Runs on the crate writer after the pending saves, so the source is complete and nothing writes to it
+    // meanwhile. The live store is read as it is: opening a second file store would clean up the temp files
+    // of the writer that shares its folder.
+    public CompletableFuture<Integer> migrateStore(String fromType, String toType) {
+        return saveQueue.afterPendingWrites(() -> {
+            boolean sourceIsLive = fromType.equalsIgnoreCase(store.getType());
+            CrateStore source = sourceIsLive ? store : createStore(fromType);
+            CrateStore target = createStore(toType);
+            try {
+                if (!sourceIsLive) {
+                    source.open();
+                }
+                target.open();
+
+                Map<String, Crate> loaded = source.loadAll().crates();
+                for (Crate crate : loaded.values()) {
+                    target.write(crate.getName(), crate.getContents());
+                }
+                target.sync();
+                return loaded.size();
+            } finally {
+                if (!sourceIsLive) {
+                    source.close();
+                }
+                target.close();
+            }
+        });
+    }
+
+    public CrateStore getStore() {
+        return store;
+    }
 
-            config.set("name", crate.getName());
-            config.set("display-item", crate.getDisplayItem());
+    public CompletableFuture<Integer> exportCrates(Collection<Crate> toExport) {
+        Map<String, CrateContents> snapshots = new LinkedHashMap<>();
+        for (Crate crate : toExport) {
+            snapshots.put(crate.getName(), crate.getContents());
+        }
 
-            // Save key item if exists
-            if (crate.getKeyItem() != null) {
-                config.set("key-item", crate.getKeyItem());
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(exportFolder.toPath());
+                AtomicFileWriter exportWriter = new AtomicFileWriter(exportFolder.toPath(), AtomicFileWriter.SyncMode.NONE);
+                for (Map.Entry<String, CrateContents> entry : snapshots.entrySet()) {
+                    exportWriter.write(entry.getKey() + yamlCodec.getExtension(), yamlCodec.encode(entry.getKey(), entry.getValue()));
+                }
+                return snapshots.size();
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
+        });
+    }
 
-            List<ItemStack> items = crate.getItems();
-            for (int i = 0; i < items.size(); i++) {
-                config.set("items." + i, items.get(i));
+    public CompletableFuture<List<Crate>> readImports(String selector) {
+        return CompletableFuture.supplyAsync(() -> {
+            File[] files = importFolder.listFiles((dir, name) -> name.endsWith(yamlCodec.getExtension())
+                && ("*".equals(selector) || name.equalsIgnoreCase(selector + yamlCodec.getExtension())));
+            if (files == null) {
+                return List.of();
             }
 
-            config.save(crateFile);
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save crate: " + crate.getName(), e);
+            List<Crate> imported = new ArrayList<>();
+            for (File file : files) {
+                String name = file.getName().substring(0, file.getName().length() - yamlCodec.getExtension().length());
+                try {
+                    validateCrateName(name);
+                    imported.add(yamlCodec.decode(name, Files.readAllBytes(file.toPath())));
+                } catch (IOException | CrateValidationException e) {
+                    plugin.getLogger().warning("Skipping import of " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            return imported;
+        });
+    }
+
+    public void applyImports(List<Crate> imported) {
+        for (Crate crate : imported) {
+            String lowerName = crate.getName().toLowerCase();
+            Crate existing = crates.get(lowerName);
+            if (existing != null) {
+                existing.replaceContents(crate.getContents());
+                crate = existing;
+            } else {
+                crates.put(lowerName, crate);
+            }
+            stampKeyItem(crate);
+            saveCrate(crate);
         }
     }
 
+    // Key items carry the crate tag the physical key index looks for; crates from before it get stamped once
+    private void stampKeyItem(Crate crate) {
+        ItemStack keyItem = crate.getContents().getKeyItem();
+        if (keyItem != null && !physicalKeys.isStamped(keyItem, crate.getName())) {
+            crate.setKeyItem(physicalKeys.stamp(keyItem, crate.getName()));
+            saveCrate(crate);
+        }
+    }
+
+    public void setKeyItem(Crate crate, ItemStack keyItem) {
+        crate.setKeyItem(physicalKeys.stamp(keyItem, crate.getName()));
+        saveCrate(crate);
+    }
+
+    public void saveCrate(Crate crate) {
+        saveQueue.markDirty(crate);
+    }
+
     public void saveAllCrates() {
         for (Crate crate : crates.values()) {
             saveCrate(crate);
         }
+        saveQueue.flush();
     }
 
-    public void reload() {
-        loadAllCrates();
+    public void shutdown() {
+        for (Crate crate : crates.values()) {
+            saveCrate(crate);
+        }
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+        }
+        saveQueue.shutdown(SHUTDOWN_FLUSH_TIMEOUT_MS);
+        store.close();
+        keyLedger.shutdown(SHUTDOWN_FLUSH_TIMEOUT_MS);
+    }
+
+    public CrateSaveQueue getSaveQueue() {
+        return saveQueue;
+    }
+
+    // The store is read on the crate writer once the pending saves are written, so it never sees half of them
+    public CompletableFuture<Integer> reload() {
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        saveQueue.afterPendingWrites(store::loadAll).whenComplete((result, error) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to reload crates, keeping previously loaded crates", error);
+                done.completeExceptionally(error);
+                return;
+            }
+
+            publish(result, true);
+            done.complete(result.crates().size());
+        }));
+        return done;
     }
 }
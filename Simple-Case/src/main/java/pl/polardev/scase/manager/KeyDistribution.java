@@ -0,0 +1,125 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ChatHelper;
+import pl.polardev.scase.model.Crate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Gives keys to many online players, a few per tick so a big event never pushes the tick over budget
+public class KeyDistribution {
+    private static final long PROGRESS_INTERVAL_NANOS = 2_000_000_000L;
+
+    private final CasePlugin plugin;
+    private final CommandSender sender;
+    private final Crate crate;
+    private final int amount;
+    private final String permission;
+    private final ItemStack[] keyStacks;
+    private final List<UUID> targets;
+    private final long budgetNanos;
+
+    private BukkitTask task;
+    private int position;
+    private int delivered;
+    private int queuedOffline;
+    private int ticks;
+    private long startedAt;
+    private long lastProgressAt;
+
+    // permission == null targets everyone online
+    public KeyDistribution(CasePlugin plugin, CommandSender sender, Crate crate, int amount, String permission) {
+        this.plugin = plugin;
+        this.sender = sender;
+        this.crate = crate;
+        this.amount = amount;
+        this.permission = permission;
+        this.budgetNanos = Math.max(100_000L, (long) (plugin.getConfig().getDouble("keys.distribution-budget-ms", 2.0) * 1_000_000));
+
+        ItemStack keyItem = crate.getContents().getKeyItem();
+        int maxStack = Math.max(1, keyItem.getMaxStackSize());
+        List<ItemStack> stacks = new ArrayList<>();
+        for (int left = amount; left > 0; left -= maxStack) {
+            stacks.add(keyItem.asQuantity(Math.min(left, maxStack)));
+        }
+        this.keyStacks = stacks.toArray(new ItemStack[0]);
+
+        // Only players online right now; anyone joining later is not part of this event
+        this.targets = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            targets.add(player.getUniqueId());
+        }
+    }
+
+    public void start() {
+        startedAt = System.nanoTime();
+        lastProgressAt = startedAt;
+        ChatHelper.reply(sender, "<yellow>Rozdawanie", "<gray>Rozpoczęto rozdawanie <gold>" + amount + "<gray> kluczy <gold>"
+            + crate.getName() + "<gray> dla <gold>" + targets.size() + "<gray> graczy");
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+        ticks++;
+
+        while (position < targets.size() && System.nanoTime() - tickStart < budgetNanos) {
+            UUID playerId = targets.get(position++);
+            Player player = Bukkit.getPlayer(playerId);
+
+            if (player == null) {
+                // Left since the start - they still get their share, on their next join
+                if (permission == null) {
+                    plugin.getKeyGrantManager().queue(playerId, crate, amount);
+                    queuedOffline++;
+                }
+                continue;
+            }
+            if (permission != null && !player.hasPermission(permission)) continue;
+
+            give(player);
+            delivered++;
+        }
+
+        long now = System.nanoTime();
+        if (position >= targets.size()) {
+            finish(now);
+        } else if (now - lastProgressAt >= PROGRESS_INTERVAL_NANOS) {
+            lastProgressAt = now;
+            ChatHelper.reply(sender, "<yellow>Rozdawanie", "<gray>Postęp: <gold>" + position + "<gray>/<gold>" + targets.size());
+        }
+    }
+
+    private void give(Player player) {
+        // addItem shrinks the stacks it is handed, so every player gets fresh copies
+        ItemStack[] stacks = new ItemStack[keyStacks.length];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = keyStacks[i].clone();
+        }
+        player.getInventory().addItem(stacks).values()
+            .forEach(excess -> player.getWorld().dropItem(player.getLocation(), excess));
+        plugin.getCrateManager().getPhysicalKeyIndex().invalidate(player);
+    }
+
+    private void finish(long now) {
+        task.cancel();
+
+        // One broadcast instead of a title per player
+        Bukkit.broadcast(ChatHelper.deserialize("<green>Wszyscy gracze" + (permission != null ? " z uprawnieniem" : "")
+            + " otrzymali <gold>" + amount + "<green> kluczy do skrzynki <gold>" + crate.getName() + "<green>!"));
+
+        String summary = "<gray>Rozdano <gold>" + delivered + "<gray> graczom w <gold>" + ticks + "<gray> tickach ("
+            + String.format("%.1f", (now - startedAt) / 1_000_000.0) + "ms)";
+        if (queuedOffline > 0) {
+            summary += ", <gold>" + queuedOffline + "<gray> po wejściu";
+        }
+        ChatHelper.reply(sender, "<green>Success", summary);
+    }
+}
@@ -0,0 +1,132 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ChatHelper;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.storage.PendingGrantStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+// Physical keys given to players who are offline, handed out in one go when they join
+public class KeyGrantManager {
+    private final CasePlugin plugin;
+    private final PendingGrantStore store;
+    private final Map<UUID, Map<String, Integer>> pendingGrants;
+    private final ExecutorService executor;
+
+    public KeyGrantManager(CasePlugin plugin, PendingGrantStore store) {
+        this.plugin = plugin;
+        this.store = store;
+        this.pendingGrants = new ConcurrentHashMap<>();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simple-Case Key Grants");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            pendingGrants.putAll(store.loadAll());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load pending key grants", e);
+        }
+        if (!pendingGrants.isEmpty()) {
+            plugin.getLogger().info("Loaded pending key grants for " + pendingGrants.size() + " offline players");
+        }
+    }
+
+    public void queue(UUID playerId, Crate crate, int amount) {
+        if (amount <= 0) return;
+
+        String crateName = crate.getName();
+        // Repeated grants for the same crate collapse into one entry, delivery is a single addItem either way
+        pendingGrants.computeIfAbsent(playerId, id -> new ConcurrentHashMap<>())
+            .merge(crateName.toLowerCase(), amount, (a, b) -> (int) Math.min(Integer.MAX_VALUE, (long) a + b));
+
+        // The single writer keeps appends and the rewrite after a delivery in order
+        executor.execute(() -> {
+            try {
+                store.append(playerId, crateName, amount);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to store pending grant of " + amount + " "
+                    + crateName + " keys for " + playerId + " - it will be lost on restart", e);
+            }
+        });
+    }
+
+    public void deliver(Player player) {
+        UUID playerId = player.getUniqueId();
+        Map<String, Integer> grants = pendingGrants.remove(playerId);
+        if (grants == null || grants.isEmpty()) return;
+
+        List<ItemStack> stacks = new ArrayList<>();
+        Map<String, Integer> remaining = new HashMap<>();
+        int delivered = 0;
+
+        for (Map.Entry<String, Integer> grant : grants.entrySet()) {
+            Crate crate = plugin.getCrateManager().getCrate(grant.getKey());
+            ItemStack keyItem = crate != null ? crate.getContents().getKeyItem() : null;
+            if (keyItem == null) {
+                // Crate deleted or its key unset since the grant - keep it until an admin sorts it out
+                plugin.getLogger().warning("Keeping " + grant.getValue() + " pending " + grant.getKey()
+                    + " keys for " + player.getName() + ": crate or key no longer exists");
+                remaining.put(grant.getKey(), grant.getValue());
+                continue;
+            }
+
+            int maxStack = Math.max(1, keyItem.getMaxStackSize());
+            int left = grant.getValue();
+            while (left > 0) {
+                int size = Math.min(left, maxStack);
+                stacks.add(keyItem.asQuantity(size));
+                left -= size;
+            }
+            delivered += grant.getValue();
+        }
+
+        if (!remaining.isEmpty()) {
+            pendingGrants.put(playerId, new ConcurrentHashMap<>(remaining));
+        }
+
+        if (!stacks.isEmpty()) {
+            player.getInventory().addItem(stacks.toArray(new ItemStack[0])).values()
+                .forEach(excess -> player.getWorld().dropItem(player.getLocation(), excess));
+            plugin.getCrateManager().getPhysicalKeyIndex().invalidate(player);
+            ChatHelper.sendMessage(player, "<green>Otrzymałeś <gold>" + delivered + "<green> kluczy przyznanych podczas Twojej nieobecności");
+        }
+
+        executor.execute(() -> {
+            try {
+                store.replace(playerId, remaining);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to clear delivered key grants of " + playerId, e);
+            }
+        });
+    }
+
+    public int getPendingPlayers() {
+        return pendingGrants.size();
+    }
+
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Key grant writer did not finish within " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
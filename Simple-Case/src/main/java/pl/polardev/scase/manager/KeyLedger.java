@@ -0,0 +1,376 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ExpiringLruCache;
+import pl.polardev.scase.model.KeyAccount;
+import pl.polardev.scase.storage.KeyLedgerStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+// Virtual keys: balances in per-player primitive accounts indexed by crate id, saved in batches
+public class KeyLedger {
+    private static final String LEGACY_KEY_PREFIX = "crate_key_";
+    private static final long FLUSH_INTERVAL_TICKS = 40L;
+    // A login another plugin refuses after the preload never joins, its account is let go after this
+    private static final long PRELOAD_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private record PreloadedAccount(KeyAccount account, long loadedAt) {
+    }
+
+    private final CasePlugin plugin;
+    private final KeyLedgerStore store;
+    private final CrateIdRegistry crateIds;
+    // Online players are pinned, so are preloaded ones until they join; recently quit players live in the
+    // bounded offline cache, whose quit grace period must not decide whether a login finds its account
+    private final Map<UUID, KeyAccount> onlineAccounts = new ConcurrentHashMap<>();
+    private final Map<UUID, PreloadedAccount> preloadedAccounts = new ConcurrentHashMap<>();
+    private final ExpiringLruCache<UUID, KeyAccount> offlineAccounts;
+    // Unsaved accounts stay reachable here even after the cache dropped them, until they are on disk
+    private final Map<UUID, KeyAccount> dirtyAccounts = new ConcurrentHashMap<>();
+    private final Map<UUID, KeyAccount> writingAccounts = new ConcurrentHashMap<>();
+    private final Set<UUID> legacyPending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private final BukkitTask flushTask;
+
+    private final AtomicLong accountsWritten = new AtomicLong();
+    private final AtomicLong legacyImports = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong preloads = new AtomicLong();
+    private final AtomicLong warmRejoins = new AtomicLong();
+
+    public KeyLedger(CasePlugin plugin, KeyLedgerStore store, CrateIdRegistry crateIds) {
+        this.plugin = plugin;
+        this.store = store;
+        this.crateIds = crateIds;
+        this.offlineAccounts = new ExpiringLruCache<>(
+            plugin.getConfig().getInt("keys.offline-cache-size", 2000),
+            Math.max(0, plugin.getConfig().getLong("keys.quit-grace-seconds", 300)) * 1000,
+            this::onEviction);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simple-Case Key Ledger Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            flush();
+            expirePreloads();
+            offlineAccounts.expireNow();
+        }, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    public int getBalance(Player player, String crateName) {
+        return getAccount(player).get(crateIds.idOf(crateName));
+    }
+
+    public int credit(Player player, String crateName, int amount) {
+        KeyAccount account = getAccount(player);
+        int balance = account.credit(crateIds.idOf(crateName), amount);
+        dirtyAccounts.put(player.getUniqueId(), account);
+        return balance;
+    }
+
+    public boolean debit(Player player, String crateName, int amount) {
+        KeyAccount account = getAccount(player);
+        if (!account.debit(crateIds.idOf(crateName), amount)) {
+            return false;
+        }
+        dirtyAccounts.put(player.getUniqueId(), account);
+        return true;
+    }
+
+    public int debitUpTo(Player player, String crateName, int amount) {
+        KeyAccount account = getAccount(player);
+        int taken = account.debitUpTo(crateIds.idOf(crateName), amount);
+        if (taken > 0) {
+            dirtyAccounts.put(player.getUniqueId(), account);
+        }
+        return taken;
+    }
+
+    public KeyAccount getAccount(Player player) {
+        KeyAccount account = onlineAccounts.get(player.getUniqueId());
+        if (account != null) {
+            hits.increment();
+            return account;
+        }
+
+        // Only players that joined without a preload (e.g. /reload) end up reading their file here
+        misses.increment();
+        return onlineAccounts.computeIfAbsent(player.getUniqueId(), id -> {
+            KeyAccount cached = takeCached(id);
+            return cached != null ? cached : loadAccount(id, player);
+        });
+    }
+
+    // Runs on the async login thread, so the first crate click after joining never touches the disk
+    public void preload(UUID playerId) {
+        if (onlineAccounts.containsKey(playerId) || preloadedAccounts.containsKey(playerId)) {
+            warmRejoins.incrementAndGet();
+            return;
+        }
+
+        // A recently quit account is taken out of the cache too, the grace period may run out before the join
+        KeyAccount cached = offlineAccounts.get(playerId);
+        if (cached != null) {
+            offlineAccounts.remove(playerId);
+        } else {
+            cached = pendingAccount(playerId);
+        }
+        if (cached != null) {
+            preloadedAccounts.put(playerId, new PreloadedAccount(cached, System.nanoTime()));
+            warmRejoins.incrementAndGet();
+            return;
+        }
+
+        preloadedAccounts.put(playerId, new PreloadedAccount(loadAccount(playerId, null), System.nanoTime()));
+        preloads.incrementAndGet();
+    }
+
+    public void handleJoin(Player player) {
+        UUID playerId = player.getUniqueId();
+        if (!onlineAccounts.containsKey(playerId)) {
+            KeyAccount account = takeCached(playerId);
+            if (account == null) {
+                misses.increment();
+                account = loadAccount(playerId, player);
+            }
+            onlineAccounts.put(playerId, account);
+        }
+
+        // The legacy PDC is only readable from the Player, which doesn't exist yet during the preload
+        if (legacyPending.remove(playerId)) {
+            KeyAccount account = onlineAccounts.get(playerId);
+            if (importLegacyKeys(player, account)) {
+                dirtyAccounts.put(playerId, account);
+            }
+        }
+    }
+
+    // The account moves to the offline cache for the grace period, its pending changes go out right away
+    public void handleQuit(UUID playerId) {
+        KeyAccount account = onlineAccounts.remove(playerId);
+        if (account != null) {
+            offlineAccounts.put(playerId, account);
+        }
+        flush();
+    }
+
+    private KeyAccount takeCached(UUID playerId) {
+        PreloadedAccount preloaded = preloadedAccounts.remove(playerId);
+        if (preloaded != null) {
+            return preloaded.account();
+        }
+
+        // get() before remove() so the offline cache counts the hit or miss
+        KeyAccount account = offlineAccounts.get(playerId);
+        if (account != null) {
+            offlineAccounts.remove(playerId);
+            return account;
+        }
+        return pendingAccount(playerId);
+    }
+
+    // Preloads that never turned into a join are handed to the offline cache like a quit
+    private void expirePreloads() {
+        if (preloadedAccounts.isEmpty()) return;
+
+        long now = System.nanoTime();
+        for (Map.Entry<UUID, PreloadedAccount> entry : preloadedAccounts.entrySet()) {
+            PreloadedAccount preloaded = entry.getValue();
+            if (now - preloaded.loadedAt() >= PRELOAD_TIMEOUT_NANOS
+                    && preloadedAccounts.remove(entry.getKey(), preloaded)) {
+                offlineAccounts.put(entry.getKey(), preloaded.account());
+            }
+        }
+    }
+
+    private KeyAccount pendingAccount(UUID playerId) {
+        KeyAccount account = dirtyAccounts.get(playerId);
+        return account != null ? account : writingAccounts.get(playerId);
+    }
+
+    private void onEviction(UUID playerId, KeyAccount account, boolean expired) {
+        legacyPending.remove(playerId);
+        // Dropping it from the cache is safe, the dirty map keeps it until this flush has written it
+        if (dirtyAccounts.containsKey(playerId)) {
+            flush();
+        }
+    }
+
+    private KeyAccount loadAccount(UUID playerId, Player player) {
+        KeyAccount account = new KeyAccount(playerId);
+        Map<String, Integer> balances;
+        try {
+            balances = store.load(playerId);
+        } catch (IOException e) {
+            // Keep the broken file around for manual recovery, the next save writes a fresh one next to it
+            plugin.getLogger().log(Level.SEVERE, "Failed to load virtual keys of " + playerId + ", starting empty", e);
+            store.quarantine(playerId);
+            balances = Map.of();
+        }
+
+        if (balances != null) {
+            balances.forEach((crateName, amount) -> account.set(crateIds.idOf(crateName), amount));
+        } else if (player == null) {
+            legacyPending.add(playerId);
+        } else if (importLegacyKeys(player, account)) {
+            dirtyAccounts.put(playerId, account);
+        }
+        return account;
+    }
+
+    // Keys used to be one PDC entry per crate on the player; they are copied once and the entries left as a backup
+    private boolean importLegacyKeys(Player player, KeyAccount account) {
+        PersistentDataContainer container = player.getPersistentDataContainer();
+        String namespace = plugin.getName().toLowerCase();
+        boolean imported = false;
+
+        for (NamespacedKey key : container.getKeys()) {
+            if (!key.getNamespace().equals(namespace) || !key.getKey().startsWith(LEGACY_KEY_PREFIX)) continue;
+
+            Integer amount = container.get(key, PersistentDataType.INTEGER);
+            if (amount != null && amount > 0) {
+                account.set(crateIds.idOf(key.getKey().substring(LEGACY_KEY_PREFIX.length())), amount);
+                imported = true;
+            }
+        }
+
+        if (imported) {
+            legacyImports.incrementAndGet();
+        }
+        return imported;
+    }
+
+    // Also runs from cache evictions on the login thread; two flushes interleaving could leave an account
+    // in the writing map that no batch will ever remove
+    public synchronized void flush() {
+        if (dirtyAccounts.isEmpty()) return;
+
+        List<KeyAccount> batch = new ArrayList<>(dirtyAccounts.size());
+        for (Map.Entry<UUID, KeyAccount> entry : List.copyOf(dirtyAccounts.entrySet())) {
+            // Into the writing map first, so a concurrent lookup never finds it in neither
+            writingAccounts.put(entry.getKey(), entry.getValue());
+            if (dirtyAccounts.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            executor.execute(() -> writeBatch(batch));
+        }
+    }
+
+    private void writeBatch(List<KeyAccount> batch) {
+        boolean[] written = new boolean[batch.size()];
+        int writtenCount = 0;
+        boolean synced = false;
+
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                KeyAccount account = batch.get(i);
+                try {
+                    // Balances are read straight from the atomics, a change racing this write re-marks the account dirty.
+                    // Names are resolved per id: crates created after the batch was queued have ids too.
+                    Map<String, Integer> balances = new HashMap<>();
+                    account.forEachBalance((crateId, amount) -> balances.put(crateIds.nameOf(crateId), amount));
+
+                    store.write(account.getPlayerId(), balances);
+                    written[i] = true;
+                    writtenCount++;
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to save virtual keys of " + account.getPlayerId(), e);
+                }
+            }
+
+            store.sync();
+            synced = true;
+            accountsWritten.addAndGet(writtenCount);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to sync virtual key batch", e);
+        } finally {
+            // Whatever isn't confirmed on disk goes back to the dirty set before it leaves the writing map,
+            // so a lookup always finds it in one of them
+            for (int i = 0; i < batch.size(); i++) {
+                KeyAccount account = batch.get(i);
+                if (!synced || !written[i]) {
+                    dirtyAccounts.putIfAbsent(account.getPlayerId(), account);
+                }
+                writingAccounts.remove(account.getPlayerId(), account);
+            }
+        }
+    }
+
+    public void shutdown(long timeoutMillis) {
+        flushTask.cancel();
+        flush();
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Key ledger writer did not finish within " + timeoutMillis + "ms, "
+                    + writingAccounts.size() + " accounts still pending");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getOnlineAccounts() {
+        return onlineAccounts.size();
+    }
+
+    public int getPreloadedAccounts() {
+        return preloadedAccounts.size();
+    }
+
+    public ExpiringLruCache<UUID, KeyAccount> getOfflineCache() {
+        return offlineAccounts;
+    }
+
+    public int getDirtyAccounts() {
+        return dirtyAccounts.size() + writingAccounts.size();
+    }
+
+    public long getAccountsWritten() {
+        return accountsWritten.get();
+    }
+
+    public long getLegacyImports() {
+        return legacyImports.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPreloads() {
+        return preloads.get();
+    }
+
+    public long getWarmRejoins() {
+        return warmRejoins.get();
+    }
+}
@@ -0,0 +1,319 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.persistence.PersistentDataType;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ItemFingerprint;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Per-player counts of physical keys, recognised by a PDC crate tag stamped on every key item.
+// Inventory events mark the slots they touch; the next check re-reads only those tags (no meta comparison)
+// and adjusts the counts, everything in between is an array read, for "no key" answers too. Only join and
+// changes that can touch any slot (shift-clicks, grants) re-read the whole inventory. Slots are still
+// verified when taking, a mismatch there means something moved unseen and triggers a full rescan.
+public class PhysicalKeyIndex {
+    private static final int NO_CRATE = -1;
+
+    private final CasePlugin plugin;
+    private final CrateIdRegistry crateIds;
+    private final Supplier<Collection<Crate>> crates;
+    private final NamespacedKey keyTag;
+    private final Map<UUID, PlayerKeys> players = new ConcurrentHashMap<>();
+    // Untagged copy of each crate's key for the legacy migration, rebuilt only when the crate's snapshot changes
+    private final Map<String, LegacyKey> legacyKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong indexHits = new AtomicLong();
+    private final AtomicLong rescans = new AtomicLong();
+    private final AtomicLong slotUpdates = new AtomicLong();
+    private final AtomicLong migratedKeys = new AtomicLong();
+
+    private static final class PlayerKeys {
+        private int[] counts = new int[0];
+        private int[] slotCrates = new int[0];
+        private int[] slotAmounts = new int[0];
+        private final BitSet changedSlots = new BitSet();
+        private boolean stale = true;
+
+        private int count(int crateId) {
+            return crateId < counts.length ? counts[crateId] : 0;
+        }
+    }
+
+    private record LegacyKey(long version, String tag, ItemStack item, long fingerprint) {
+    }
+
+    public PhysicalKeyIndex(CasePlugin plugin, CrateIdRegistry crateIds, Supplier<Collection<Crate>> crates) {
+        this.plugin = plugin;
+        this.crateIds = crateIds;
+        this.crates = crates;
+        this.keyTag = new NamespacedKey(plugin, "key_crate");
+    }
+
+    public ItemStack stamp(ItemStack keyItem, String crateName) {
+        ItemStack stamped = keyItem.asOne();
+        stamped.editMeta(meta -> meta.getPersistentDataContainer().set(keyTag, PersistentDataType.STRING, crateName.toLowerCase()));
+        return stamped;
+    }
+
+    public boolean isStamped(ItemStack keyItem, String crateName) {
+        return crateName.toLowerCase().equals(readTag(keyItem));
+    }
+
+    private String readTag(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return null;
+        return item.getPersistentDataContainer().get(keyTag, PersistentDataType.STRING);
+    }
+
+    public int getKeyCount(Player player, Crate crate) {
+        return state(player).count(crateIds.idOf(crate.getName()));
+    }
+
+    public boolean hasKey(Player player, Crate crate) {
+        if (crate.getContents().getKeyItem() == null) return true; // No key required
+
+        indexHits.incrementAndGet();
+        return state(player).count(crateIds.idOf(crate.getName())) > 0;
+    }
+
+    // Takes up to amount keys straight from the slots the index knows about and returns how many it took
+    public int takeKeys(Player player, Crate crate, int amount) {
+        if (crate.getContents().getKeyItem() == null) return amount; // No key required
+        if (amount <= 0) return 0;
+
+        int crateId = crateIds.idOf(crate.getName());
+        String tag = crate.getName().toLowerCase();
+        PlayerKeys keys = state(player);
+
+        int taken = take(player, keys, crateId, tag, amount);
+        if (taken < amount && keys.stale) {
+            rescan(player, keys);
+            taken += take(player, keys, crateId, tag, amount - taken);
+        } else {
+            indexHits.incrementAndGet();
+        }
+        return taken;
+    }
+
+    public boolean takeKey(Player player, Crate crate) {
+        return takeKeys(player, crate, 1) == 1;
+    }
+
+    private int take(Player player, PlayerKeys keys, int crateId, String tag, int amount) {
+        if (keys.count(crateId) == 0) return 0;
+
+        PlayerInventory inventory = player.getInventory();
+        int taken = 0;
+        for (int slot = 0; slot < keys.slotCrates.length && taken < amount; slot++) {
+            if (keys.slotCrates[slot] != crateId) continue;
+
+            ItemStack item = inventory.getItem(slot);
+            if (!tag.equals(readTag(item))) {
+                // Moved by something no event told us about
+                keys.stale = true;
+                continue;
+            }
+
+            int remove = Math.min(item.getAmount(), amount - taken);
+            int left = item.getAmount() - remove;
+            if (left > 0) {
+                item.setAmount(left);
+                inventory.setItem(slot, item);
+            } else {
+                inventory.setItem(slot, null);
+                keys.slotCrates[slot] = NO_CRATE;
+            }
+            keys.slotAmounts[slot] = left;
+            keys.counts[crateId] -= remove;
+            taken += remove;
+        }
+        return taken;
+    }
+
+    // Anything may have changed: the next check re-reads every slot
+    public void invalidate(Player player) {
+        PlayerKeys keys = players.get(player.getUniqueId());
+        if (keys != null) {
+            keys.stale = true;
+        }
+    }
+
+    // One slot of the player's inventory (0-35 storage, 36-39 armor, 40 off hand) may have changed
+    public void markSlot(Player player, int slot) {
+        PlayerKeys keys = players.get(player.getUniqueId());
+        if (keys != null && !keys.stale) {
+            keys.changedSlots.set(slot);
+        }
+    }
+
+    // Whether an item entering or leaving the inventory can change any count: tagged, or of a key's material
+    // and so possibly a key from before tagging
+    public boolean mayBeKey(ItemStack item) {
+        if (item == null || item.isEmpty()) return false;
+        if (readTag(item) != null) return true;
+
+        for (Crate crate : crates.get()) {
+            ItemStack keyItem = crate.getContents().getKeyItem();
+            if (keyItem != null && keyItem.getType() == item.getType()) return true;
+        }
+        return false;
+    }
+
+    private PlayerKeys state(Player player) {
+        PlayerKeys keys = players.computeIfAbsent(player.getUniqueId(), id -> new PlayerKeys());
+        if (keys.stale) {
+            rescan(player, keys);
+        } else if (!keys.changedSlots.isEmpty()) {
+            updateSlots(player, keys);
+        }
+        return keys;
+    }
+
+    // Takes each changed slot's old key amount out of the counts and adds whatever it holds now
+    private void updateSlots(Player player, PlayerKeys keys) {
+        PlayerInventory inventory = player.getInventory();
+        for (int slot = keys.changedSlots.nextSetBit(0); slot >= 0; slot = keys.changedSlots.nextSetBit(slot + 1)) {
+            if (slot >= keys.slotCrates.length) {
+                rescan(player, keys);
+                return;
+            }
+
+            int previous = keys.slotCrates[slot];
+            if (previous != NO_CRATE) {
+                keys.counts[previous] -= keys.slotAmounts[slot];
+                keys.slotCrates[slot] = NO_CRATE;
+                keys.slotAmounts[slot] = 0;
+            }
+
+            ItemStack item = inventory.getItem(slot);
+            String tag = readTag(item);
+            if (tag == null && (tag = migrate(inventory, slot, item)) == null) continue;
+
+            int crateId = crateIds.idOf(tag);
+            if (crateId >= keys.counts.length) {
+                keys.counts = Arrays.copyOf(keys.counts, crateIds.size());
+            }
+            keys.counts[crateId] += item.getAmount();
+            keys.slotCrates[slot] = crateId;
+            keys.slotAmounts[slot] = item.getAmount();
+        }
+
+        slotUpdates.addAndGet(keys.changedSlots.cardinality());
+        keys.changedSlots.clear();
+    }
+
+    private void rescan(Player player, PlayerKeys keys) {
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        int[] counts = new int[crateIds.size()];
+        int[] slotCrates = new int[contents.length];
+        int[] slotAmounts = new int[contents.length];
+        Arrays.fill(slotCrates, NO_CRATE);
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            ItemStack item = contents[slot];
+            String tag = readTag(item);
+            if (tag == null && (tag = migrate(inventory, slot, item)) == null) continue;
+
+            int crateId = crateIds.idOf(tag);
+            if (crateId >= counts.length) {
+                counts = Arrays.copyOf(counts, crateIds.size());
+            }
+            counts[crateId] += item.getAmount();
+            slotCrates[slot] = crateId;
+            slotAmounts[slot] = item.getAmount();
+        }
+
+        keys.counts = counts;
+        keys.slotCrates = slotCrates;
+        keys.slotAmounts = slotAmounts;
+        keys.changedSlots.clear();
+        keys.stale = false;
+        rescans.incrementAndGet();
+    }
+
+    public void handleJoin(Player player) {
+        PlayerKeys keys = players.computeIfAbsent(player.getUniqueId(), id -> new PlayerKeys());
+        rescan(player, keys);
+    }
+
+    // Keys handed out before stamping existed are found by comparing against the untagged key of every crate,
+    // stamped in place, and from then on only need the cheap tag read. Runs for every slot read rather than only
+    // on join, so old keys coming out of chests, ender chests or other players are picked up as well.
+    private String migrate(PlayerInventory inventory, int slot, ItemStack item) {
+        if (item == null || item.isEmpty()) return null;
+
+        // Only untagged items of a key's material are serialized, once per slot instead of one meta comparison
+        // per slot and crate
+        long fingerprint = ItemFingerprint.UNKNOWN;
+        for (Crate crate : crates.get()) {
+            ItemStack keyItem = crate.getContents().getKeyItem();
+            if (keyItem == null || keyItem.getType() != item.getType()) continue;
+
+            LegacyKey legacyKey = legacyKey(crate);
+            if (legacyKey == null) continue;
+            if (fingerprint == ItemFingerprint.UNKNOWN) {
+                fingerprint = ItemFingerprint.of(item);
+            }
+            if (!ItemFingerprint.matches(legacyKey.item(), legacyKey.fingerprint(), item, fingerprint)) continue;
+
+            item.editMeta(meta -> meta.getPersistentDataContainer().set(keyTag, PersistentDataType.STRING, legacyKey.tag()));
+            inventory.setItem(slot, item);
+            migratedKeys.addAndGet(item.getAmount());
+            return legacyKey.tag();
+        }
+        return null;
+    }
+
+    private LegacyKey legacyKey(Crate crate) {
+        CrateContents contents = crate.getContents();
+        String tag = crate.getName().toLowerCase();
+        if (contents.getKeyItem() == null) {
+            legacyKeys.remove(tag);
+            return null;
+        }
+
+        LegacyKey cached = legacyKeys.get(tag);
+        if (cached != null && cached.version() == contents.getVersion()) {
+            return cached;
+        }
+
+        ItemStack item = contents.getKeyItem().clone();
+        item.editMeta(meta -> meta.getPersistentDataContainer().remove(keyTag));
+        LegacyKey legacyKey = new LegacyKey(contents.getVersion(), tag, item, ItemFingerprint.of(item));
+        legacyKeys.put(tag, legacyKey);
+        return legacyKey;
+    }
+
+    public void handleQuit(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    public long getIndexHits() {
+        return indexHits.get();
+    }
+
+    public long getRescans() {
+        return rescans.get();
+    }
+
+    public long getSlotUpdates() {
+        return slotUpdates.get();
+    }
+
+    public long getMigratedKeys() {
+        return migratedKeys.get();
+    }
+}
@@ -0,0 +1,129 @@
+package pl.polardev.scase.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// A compiled opening animation: the ticks (counted from the start of the spin) on which a frame is drawn
+// and the slots the reel runs through. All the curve maths happens once here, the animation only indexes.
+public final class AnimationProfile {
+    public enum Easing {
+        STEPS, LINEAR, EASE_IN_QUAD, EASE_IN_CUBIC, EASE_OUT_QUAD, EASE_OUT_CUBIC;
+
+        public static Easing parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown easing '" + value + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT).replace('_', '-'));
+            }
+        }
+
+        private double apply(double progress) {
+            return switch (this) {
+                case STEPS, LINEAR -> progress;
+                case EASE_IN_QUAD -> progress * progress;
+                case EASE_IN_CUBIC -> progress * progress * progress;
+                case EASE_OUT_QUAD -> 1 - (1 - progress) * (1 - progress);
+                case EASE_OUT_CUBIC -> 1 - Math.pow(1 - progress, 3);
+            };
+        }
+    }
+
+    public static final int[] DEFAULT_SLOTS = {10, 11, 12, 13, 14, 15, 16};
+    // The spin every crate had before profiles existed
+    public static final AnimationProfile CLASSIC = steps("classic", 140,
+        new int[]{0, 40, 80, 100, 120}, new int[]{3, 5, 8, 12, 20}, DEFAULT_SLOTS);
+
+    private final String name;
+    private final int[] frameTicks;
+    private final int[] slots;
+
+    private AnimationProfile(String name, int[] frameTicks, int[] slots) {
+        this.name = name;
+        this.frameTicks = frameTicks;
+        this.slots = slots;
+    }
+
+    // Gap table: from tick stepStarts[i] on, frames fall on the ticks divisible by stepGaps[i].
+    // The last tick always gets a frame, that is where the reel stops.
+    public static AnimationProfile steps(String name, int duration, int[] stepStarts, int[] stepGaps, int[] slots) {
+        validate(duration, slots);
+        if (stepStarts.length == 0 || stepStarts.length != stepGaps.length) {
+            throw new IllegalArgumentException("Steps need at least one 'tick: gap' entry");
+        }
+
+        int[] frames = new int[duration + 1];
+        int count = 0;
+        int step = 0;
+        for (int tick = 0; tick <= duration; tick++) {
+            while (step + 1 < stepStarts.length && tick >= stepStarts[step + 1]) {
+                step++;
+            }
+            if (tick == duration || tick % Math.max(1, stepGaps[step]) == 0) {
+                frames[count++] = tick;
+            }
+        }
+        return new AnimationProfile(name, Arrays.copyOf(frames, count), slots.clone());
+    }
+
+    // The gap between frames moves from startGap to endGap along the easing curve
+    public static AnimationProfile eased(String name, int duration, Easing easing, int startGap, int endGap, int[] slots) {
+        validate(duration, slots);
+        if (startGap < 1 || endGap < 1) {
+            throw new IllegalArgumentException("Frame gaps must be at least 1 tick");
+        }
+
+        int[] frames = new int[duration + 1];
+        int count = 0;
+        int tick = 0;
+        while (tick < duration) {
+            frames[count++] = tick;
+            double gap = startGap + (endGap - startGap) * easing.apply(tick / (double) duration);
+            tick += Math.max(1, (int) Math.round(gap));
+        }
+        frames[count++] = duration;
+        return new AnimationProfile(name, Arrays.copyOf(frames, count), slots.clone());
+    }
+
+    private static void validate(int duration, int[] slots) {
+        if (duration < 1) {
+            throw new IllegalArgumentException("Duration must be at least 1 tick");
+        }
+        if (slots.length == 0) {
+            throw new IllegalArgumentException("At least one slot is needed");
+        }
+        for (int slot : slots) {
+            if (slot < 0 || slot >= 27) {
+                throw new IllegalArgumentException("Slot " + slot + " is outside the 27 slot animation window");
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFrameCount() {
+        return frameTicks.length;
+    }
+
+    public int getFrameTick(int frame) {
+        return frameTicks[frame];
+    }
+
+    public int getDuration() {
+        return frameTicks[frameTicks.length - 1];
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    public int getSlot(int index) {
+        return slots[index];
+    }
+
+    public int[] getSlots() {
+        return slots.clone();
+    }
+}
@@ -2,81 +2,125 @@ package pl.polardev.scase.model;
 
 import org.bukkit.inventory.ItemStack;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class Crate {
+    public static final int DEFAULT_WEIGHT = 1;
+
     private final String name;
-    private ItemStack displayItem;
-    private ItemStack keyItem;
-    private List<ItemStack> items;
-    private static final Random RANDOM = ThreadLocalRandom.current();
+    private volatile CrateContents contents;
 
     public Crate(String name, ItemStack displayItem) {
         this.name = name;
-        this.displayItem = displayItem.clone();
-        this.items = new ArrayList<>();
+        this.contents = CrateContents.of(displayItem);
     }
 
     public String getName() {
         return name;
     }
 
+    // Readers grab one snapshot and work on it, edits publish a new one
+    public CrateContents getContents() {
+        return contents;
+    }
+
+    public synchronized void replaceContents(CrateContents contents) {
+        this.contents = contents;
+    }
+
+    public long getVersion() {
+        return contents.getVersion();
+    }
+
     public ItemStack getDisplayItem() {
-        return displayItem.clone();
+        return contents.getDisplayItem().clone();
     }
 
-    public void setDisplayItem(ItemStack displayItem) {
-        this.displayItem = displayItem.clone();
+    public synchronized void setDisplayItem(ItemStack displayItem) {
+        contents = contents.withDisplayItem(displayItem);
     }
 
     public ItemStack getKeyItem() {
+        ItemStack keyItem = contents.getKeyItem();
         return keyItem != null ? keyItem.clone() : null;
     }
 
-    public void setKeyItem(ItemStack keyItem) {
-        this.keyItem = keyItem != null ? keyItem.clone() : null;
+    public synchronized void setKeyItem(ItemStack keyItem) {
+        contents = contents.withKeyItem(keyItem);
     }
 
     public List<ItemStack> getItems() {
-        return new ArrayList<>(items);
+        return contents.getItems();
+    }
+
+    public int[] getWeights() {
+        return contents.getWeights();
+    }
+
+    public int getWeight(int index) {
+        return contents.getWeight(index);
+    }
+
+    public synchronized void setWeight(int index, int weight) {
+        if (index >= 0 && index < contents.getItemCount()) {
+            contents = contents.withWeight(index, weight);
+        }
     }
 
-    public void setItems(List<ItemStack> items) {
-        this.items = new ArrayList<>();
-        for (ItemStack item : items) {
-            if (item != null) {
-                this.items.add(item.clone());
-            }
+    public synchronized void setItems(List<ItemStack> items) {
+        // Items coming back from the edit GUI keep the weight of an identical existing reward
+        CrateContents current = contents;
+        List<ItemStack> oldItems = current.getItems();
+
+        List<ItemStack> newItems = items.stream()
+                .filter(item -> item != null)
+                .toList();
+        int[] newWeights = new int[newItems.size()];
+        for (int i = 0; i < newWeights.length; i++) {
+            int oldIndex = oldItems.indexOf(newItems.get(i));
+            newWeights[i] = oldIndex >= 0 ? current.getWeight(oldIndex) : DEFAULT_WEIGHT;
         }
+
+        contents = current.withItems(newItems, newWeights);
+    }
+
+    public synchronized void setItems(List<ItemStack> items, int[] weights) {
+        contents = contents.withItems(items, weights);
     }
 
     public void addItem(ItemStack item) {
+        addItem(item, DEFAULT_WEIGHT);
+    }
+
+    public synchronized void addItem(ItemStack item, int weight) {
         if (item != null) {
-            items.add(item.clone());
+            contents = contents.withItem(item, weight);
         }
     }
 
-    public void removeItem(int index) {
-        if (index >= 0 && index < items.size()) {
-            items.remove(index);
+    public synchronized void removeItem(int index) {
+        if (index >= 0 && index < contents.getItemCount()) {
+            contents = contents.withoutItem(index);
         }
     }
 
+    public int getRandomIndex() {
+        return contents.getRandomIndex();
+    }
+
     public ItemStack getRandomItem() {
-        if (items.isEmpty()) {
-            return null;
-        }
-        return items.get(RANDOM.nextInt(items.size())).clone();
+        return contents.getRandomItem();
+    }
+
+    public long getTotalWeight() {
+        return contents.getTotalWeight();
     }
 
     public boolean hasItems() {
-        return !items.isEmpty();
+        return contents.hasItems();
     }
 
     public int getItemCount() {
-        return items.size();
+        return contents.getItemCount();
     }
 }
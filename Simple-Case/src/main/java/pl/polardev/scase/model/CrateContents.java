@@ -0,0 +1,158 @@
+package pl.polardev.scase.model;
+
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.helper.ItemFingerprint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Immutable view of a crate's content - never mutate the ItemStacks handed out by the shared getters
+public final class CrateContents {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final ItemStack displayItem;
+    private final ItemStack keyItem;
+    private final List<ItemStack> items;
+    // Parallel to items, computed when an item enters a snapshot and shared by every later snapshot
+    private final long[] fingerprints;
+    private final int[] weights;
+    private final AliasTable sampler;
+
+    private CrateContents(ItemStack displayItem, ItemStack keyItem, List<ItemStack> items, long[] fingerprints, int[] weights) {
+        this.version = VERSIONS.incrementAndGet();
+        this.displayItem = displayItem;
+        this.keyItem = keyItem;
+        this.items = items;
+        this.fingerprints = fingerprints;
+        this.weights = weights;
+        this.sampler = items.isEmpty() ? null : AliasTable.of(weights);
+    }
+
+    public static CrateContents of(ItemStack displayItem) {
+        return new CrateContents(displayItem.clone(), null, List.of(), new long[0], new int[0]);
+    }
+
+    public CrateContents withDisplayItem(ItemStack displayItem) {
+        return new CrateContents(displayItem.clone(), keyItem, items, fingerprints, weights);
+    }
+
+    public CrateContents withKeyItem(ItemStack keyItem) {
+        return new CrateContents(displayItem, keyItem != null ? keyItem.clone() : null, items, fingerprints, weights);
+    }
+
+    public CrateContents withItems(List<ItemStack> newItems, int[] newWeights) {
+        if (newItems.size() != newWeights.length) {
+            throw new IllegalArgumentException("Got " + newItems.size() + " items but " + newWeights.length + " weights");
+        }
+
+        List<ItemStack> copy = new ArrayList<>(newItems.size());
+        long[] fingerprintCopy = new long[newItems.size()];
+        for (ItemStack item : newItems) {
+            fingerprintCopy[copy.size()] = ItemFingerprint.of(item);
+            copy.add(item.clone());
+        }
+
+        int[] weightCopy = new int[newWeights.length];
+        for (int i = 0; i < newWeights.length; i++) {
+            weightCopy[i] = Math.max(1, newWeights[i]);
+        }
+
+        return new CrateContents(displayItem, keyItem, Collections.unmodifiableList(copy), fingerprintCopy, weightCopy);
+    }
+
+    public CrateContents withItem(ItemStack item, int weight) {
+        List<ItemStack> copy = new ArrayList<>(items);
+        copy.add(item.clone());
+
+        long[] fingerprintCopy = Arrays.copyOf(fingerprints, fingerprints.length + 1);
+        fingerprintCopy[fingerprints.length] = ItemFingerprint.of(item);
+
+        int[] weightCopy = Arrays.copyOf(weights, weights.length + 1);
+        weightCopy[weights.length] = Math.max(1, weight);
+
+        return new CrateContents(displayItem, keyItem, Collections.unmodifiableList(copy), fingerprintCopy, weightCopy);
+    }
+
+    public CrateContents withoutItem(int index) {
+        List<ItemStack> copy = new ArrayList<>(items);
+        copy.remove(index);
+
+        long[] fingerprintCopy = new long[fingerprints.length - 1];
+        System.arraycopy(fingerprints, 0, fingerprintCopy, 0, index);
+        System.arraycopy(fingerprints, index + 1, fingerprintCopy, index, fingerprints.length - index - 1);
+
+        int[] weightCopy = new int[weights.length - 1];
+        System.arraycopy(weights, 0, weightCopy, 0, index);
+        System.arraycopy(weights, index + 1, weightCopy, index, weights.length - index - 1);
+
+        return new CrateContents(displayItem, keyItem, Collections.unmodifiableList(copy), fingerprintCopy, weightCopy);
+    }
+
+    public CrateContents withWeight(int index, int weight) {
+        int[] weightCopy = weights.clone();
+        weightCopy[index] = Math.max(1, weight);
+        return new CrateContents(displayItem, keyItem, items, fingerprints, weightCopy);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ItemStack getDisplayItem() {
+        return displayItem;
+    }
+
+    public ItemStack getKeyItem() {
+        return keyItem;
+    }
+
+    public List<ItemStack> getItems() {
+        return items;
+    }
+
+    public ItemStack getItem(int index) {
+        return items.get(index);
+    }
+
+    public long getFingerprint(int index) {
+        return fingerprints[index];
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    // Summed as long like the alias table, a few large weights overflow an int
+    public long getTotalWeight() {
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    public int getRandomIndex() {
+        return sampler != null ? sampler.sample() : -1;
+    }
+
+    public ItemStack getRandomItem() {
+        int index = getRandomIndex();
+        return index >= 0 ? items.get(index).clone() : null;
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public boolean hasItems() {
+        return !items.isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+package pl.polardev.scase.model;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Virtual key balances of one player, indexed by CrateIdRegistry ids
+public class KeyAccount {
+    public interface BalanceVisitor {
+        void visit(int crateId, int amount);
+    }
+
+    // Balances live in fixed chunks that are never copied, so growing can't lose a concurrent update
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final UUID playerId;
+    private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+
+    public KeyAccount(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public int get(int crateId) {
+        AtomicIntegerArray[] current = chunks;
+        int chunk = crateId >>> CHUNK_SHIFT;
+        return chunk < current.length ? current[chunk].get(crateId & CHUNK_MASK) : 0;
+    }
+
+    public int credit(int crateId, int amount) {
+        if (amount <= 0) return get(crateId);
+
+        AtomicIntegerArray chunk = chunkFor(crateId);
+        int index = crateId & CHUNK_MASK;
+        int current;
+        int updated;
+        do {
+            current = chunk.get(index);
+            // Saturate instead of wrapping around into a negative balance
+            updated = current > Integer.MAX_VALUE - amount ? Integer.MAX_VALUE : current + amount;
+        } while (!chunk.compareAndSet(index, current, updated));
+        return updated;
+    }
+
+    // All or nothing - returns false and leaves the balance alone when it is too low
+    public boolean debit(int crateId, int amount) {
+        if (amount <= 0) return true;
+
+        AtomicIntegerArray[] current = chunks;
+        int chunk = crateId >>> CHUNK_SHIFT;
+        if (chunk >= current.length) return false;
+
+        AtomicIntegerArray balances = current[chunk];
+        int index = crateId & CHUNK_MASK;
+        int balance;
+        do {
+            balance = balances.get(index);
+            if (balance < amount) return false;
+        } while (!balances.compareAndSet(index, balance, balance - amount));
+        return true;
+    }
+
+    // Takes as much as is available up to amount and returns what was taken
+    public int debitUpTo(int crateId, int amount) {
+        if (amount <= 0) return 0;
+
+        AtomicIntegerArray[] current = chunks;
+        int chunk = crateId >>> CHUNK_SHIFT;
+        if (chunk >= current.length) return 0;
+
+        AtomicIntegerArray balances = current[chunk];
+        int index = crateId & CHUNK_MASK;
+        int balance;
+        int taken;
+        do {
+            balance = balances.get(index);
+            taken = Math.min(balance, amount);
+            if (taken == 0) return 0;
+        } while (!balances.compareAndSet(index, balance, balance - taken));
+        return taken;
+    }
+
+    public void set(int crateId, int amount) {
+        chunkFor(crateId).set(crateId & CHUNK_MASK, Math.max(0, amount));
+    }
+
+    public void forEachBalance(BalanceVisitor visitor) {
+        AtomicIntegerArray[] current = chunks;
+        for (int chunk = 0; chunk < current.length; chunk++) {
+            AtomicIntegerArray balances = current[chunk];
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                int amount = balances.get(i);
+                if (amount > 0) {
+                    visitor.visit((chunk << CHUNK_SHIFT) | i, amount);
+                }
+            }
+        }
+    }
+
+    private AtomicIntegerArray chunkFor(int crateId) {
+        int chunk = crateId >>> CHUNK_SHIFT;
+        AtomicIntegerArray[] current = chunks;
+        if (chunk < current.length) {
+            return current[chunk];
+        }
+        return grow(chunk);
+    }
+
+    private synchronized AtomicIntegerArray grow(int chunk) {
+        AtomicIntegerArray[] current = chunks;
+        if (chunk >= current.length) {
+            AtomicIntegerArray[] grown = new AtomicIntegerArray[chunk + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicIntegerArray(CHUNK_SIZE);
+            }
+            chunks = grown;
+            current = grown;
+        }
+        return current[chunk];
+    }
+}
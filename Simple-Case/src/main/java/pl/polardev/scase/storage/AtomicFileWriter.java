@@ -0,0 +1,117 @@
+package pl.polardev.scase.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+public final class AtomicFileWriter {
+    public enum SyncMode {
+        NONE, BATCH, ALWAYS;
+
+        public static SyncMode parse(String value) {
+            try {
+                return value == null ? BATCH : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return BATCH;
+            }
+        }
+    }
+
+    public static final String TEMP_SUFFIX = ".tmp";
+    // The only platform where a directory can't be opened as a channel, and where a rename needs no directory fsync
+    private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private final Path directory;
+    private final SyncMode syncMode;
+    private volatile boolean directoryDirty;
+    private volatile boolean directorySyncSupported = true;
+
+    public AtomicFileWriter(Path directory, SyncMode syncMode) {
+        this.directory = directory;
+        this.syncMode = syncMode;
+    }
+
+    // Readers only ever see the old file or the complete new one - the temp file is renamed over the target.
+    // Unless fsync is off, the data is on disk before the rename, so a crash can't leave a renamed but empty file.
+    public void write(String fileName, byte[] data) throws IOException {
+        Path target = directory.resolve(fileName);
+        Path temp = directory.resolve(fileName + TEMP_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncMode != SyncMode.NONE) {
+                channel.force(true);
+            }
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        directoryDirty = true;
+
+        if (syncMode == SyncMode.ALWAYS) {
+            sync();
+        }
+    }
+
+    public void delete(String fileName) throws IOException {
+        if (Files.deleteIfExists(directory.resolve(fileName))) {
+            directoryDirty = true;
+        }
+    }
+
+    // One directory fsync persists every rename of the batch. A failure is thrown so the caller keeps its
+    // work dirty, and the directory stays marked for the next attempt.
+    public void sync() throws IOException {
+        if (syncMode == SyncMode.NONE || !directoryDirty || !directorySyncSupported) return;
+        directoryDirty = false;
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            if (WINDOWS) {
+                // Windows can't open directories as channels, renames there are durable enough as is
+                directorySyncSupported = false;
+                return;
+            }
+            directoryDirty = true;
+            throw e;
+        }
+
+        try (channel) {
+            channel.force(true);
+        } catch (IOException e) {
+            directoryDirty = true;
+            throw e;
+        }
+    }
+
+    public int cleanupTemporaryFiles() throws IOException {
+        int removed = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path temp : stream) {
+                Files.deleteIfExists(temp);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public SyncMode getSyncMode() {
+        return syncMode;
+    }
+}
@@ -0,0 +1,132 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Layout: magic, format version, flags, item count, then length-prefixed Paper item bytes (body optionally deflated)
+public class BinaryCrateCodec implements CrateCodec {
+    private static final int MAGIC = 0x53435254; // "SCRT"
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte FLAG_COMPRESSED = 0x01;
+    private static final int MAX_ITEMS = 1 << 16;
+    private static final int MAX_ITEM_BYTES = 1 << 24;
+
+    private final boolean compress;
+
+    public BinaryCrateCodec(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public String getExtension() {
+        return ".crate";
+    }
+
+    @Override
+    public byte[] encode(String name, CrateContents contents) throws IOException {
+        List<ItemStack> items = contents.getItems();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + items.size() * 128);
+
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.writeByte(compress ? FLAG_COMPRESSED : 0);
+        header.writeInt(items.size());
+        header.flush();
+
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        OutputStream bodyStream = deflater != null ? new DeflaterOutputStream(bytes, deflater) : bytes;
+        try (DataOutputStream body = new DataOutputStream(bodyStream)) {
+            writeItem(body, contents.getDisplayItem());
+
+            ItemStack keyItem = contents.getKeyItem();
+            body.writeBoolean(keyItem != null);
+            if (keyItem != null) {
+                writeItem(body, keyItem);
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                body.writeInt(contents.getWeight(i));
+                writeItem(body, items.get(i));
+            }
+        } finally {
+            // A deflater passed in explicitly is not released by the stream
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Crate decode(String name, byte[] data) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream header = new DataInputStream(bytes);
+
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a binary crate file: " + name);
+        }
+
+        byte version = header.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary crate format version " + version + " in " + name);
+        }
+
+        boolean compressed = (header.readByte() & FLAG_COMPRESSED) != 0;
+        int itemCount = header.readInt();
+        if (itemCount < 0 || itemCount > MAX_ITEMS) {
+            throw new IOException("Invalid item count " + itemCount + " in " + name);
+        }
+
+        InputStream bodyStream = compressed ? new InflaterInputStream(bytes) : bytes;
+        try (DataInputStream body = new DataInputStream(bodyStream)) {
+            Crate crate = new Crate(name, readItem(body));
+
+            if (body.readBoolean()) {
+                crate.setKeyItem(readItem(body));
+            }
+
+            List<ItemStack> items = new ArrayList<>(itemCount);
+            int[] weights = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                weights[i] = body.readInt();
+                items.add(readItem(body));
+            }
+            crate.setItems(items, weights);
+
+            return crate;
+        }
+    }
+
+    private void writeItem(DataOutputStream out, ItemStack item) throws IOException {
+        byte[] serialized = item.serializeAsBytes();
+        out.writeInt(serialized.length);
+        out.write(serialized);
+    }
+
+    private ItemStack readItem(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MAX_ITEM_BYTES) {
+            throw new IOException("Invalid item length " + length);
+        }
+
+        byte[] serialized = new byte[length];
+        in.readFully(serialized);
+        return ItemStack.deserializeBytes(serialized);
+    }
+}
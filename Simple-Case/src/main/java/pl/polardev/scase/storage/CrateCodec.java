@@ -0,0 +1,14 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.IOException;
+
+public interface CrateCodec {
+    String getExtension();
+
+    byte[] encode(String name, CrateContents contents) throws IOException;
+
+    Crate decode(String name, byte[] data) throws IOException;
+}
@@ -0,0 +1,142 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.model.Crate;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class CrateFileWatcher {
+    // Changed crates keyed by lower-case name, plus lower-case names whose files are gone; always called on the main thread
+    public interface ChangeListener {
+        void onCratesChanged(Map<String, Crate> changed, Set<String> removed);
+
+        void onFullReloadNeeded();
+    }
+
+    private static final long DEBOUNCE_MS = 500;
+    private static final long MAX_BATCH_WAIT_MS = 5000;
+
+    private final CasePlugin plugin;
+    private final FileCrateStore store;
+    private final ChangeListener listener;
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public CrateFileWatcher(CasePlugin plugin, FileCrateStore store, ChangeListener listener) {
+        this.plugin = plugin;
+        this.store = store;
+        this.listener = listener;
+    }
+
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        store.getFolder().toPath().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+
+        running = true;
+        thread = new Thread(this::run, "Simple-Case Crate Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                Set<String> changedFiles = new LinkedHashSet<>();
+                boolean overflow = collect(watchService.take(), changedFiles);
+
+                // Debounce bursts (e.g. a git pull) into one batch, but never hold a batch back forever
+                long batchStart = System.currentTimeMillis();
+                WatchKey next;
+                while (System.currentTimeMillis() - batchStart < MAX_BATCH_WAIT_MS
+                        && (next = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(next, changedFiles);
+                }
+
+                if (overflow) {
+                    plugin.getServer().getScheduler().runTask(plugin, listener::onFullReloadNeeded);
+                } else if (!changedFiles.isEmpty()) {
+                    processBatch(changedFiles);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private boolean collect(WatchKey key, Set<String> changedFiles) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+
+            String fileName = ((Path) event.context()).getFileName().toString();
+            if (store.isCrateFile(fileName)) {
+                changedFiles.add(store.getBaseName(fileName));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private void processBatch(Set<String> baseNames) {
+        Map<String, Crate> changed = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+
+        for (String baseName : baseNames) {
+            if (store.isOwnChange(baseName)) continue;
+
+            try {
+                Crate crate = store.readCrate(baseName);
+                if (crate != null) {
+                    changed.put(baseName.toLowerCase(), crate);
+                } else {
+                    removed.add(baseName.toLowerCase());
+                }
+            } catch (IOException e) {
+                // Half-written or broken file - keep the loaded version until the next valid change
+                plugin.getLogger().log(Level.WARNING, "Ignoring unreadable crate file change: " + baseName, e);
+            }
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) return;
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> listener.onCratesChanged(changed, removed));
+    }
+
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.scheduler.BukkitTask;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+public class CrateSaveQueue {
+    private final CasePlugin plugin;
+    private final CrateWriter writer;
+    private final ExecutorService executor;
+    private final Map<String, Crate> dirtyCrates;
+    private final Map<String, Long> writtenVersions;
+    private final BukkitTask flushTask;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong coalescedEdits = new AtomicLong();
+    private final AtomicLong cratesWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private static final long FLUSH_INTERVAL_TICKS = 40L;
+
+    public CrateSaveQueue(CasePlugin plugin, CrateWriter writer) {
+        this.plugin = plugin;
+        this.writer = writer;
+        this.dirtyCrates = new ConcurrentHashMap<>();
+        this.writtenVersions = new ConcurrentHashMap<>();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simple-Case Crate Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::flush,
+            FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    public void markDirty(Crate crate) {
+        if (dirtyCrates.put(crate.getName().toLowerCase(), crate) != null) {
+            coalescedEdits.incrementAndGet();
+        }
+    }
+
+    public void markClean(Crate crate) {
+        writtenVersions.put(crate.getName().toLowerCase(), crate.getVersion());
+    }
+
+    // True while memory holds something the store hasn't durably got yet: the crate is waiting for a flush,
+    // or it is being written (writtenVersions only moves once the batch is synced)
+    public boolean hasUnsavedChanges(Crate crate) {
+        String key = crate.getName().toLowerCase();
+        if (dirtyCrates.containsKey(key)) return true;
+
+        Long written = writtenVersions.get(key);
+        return written == null || written != crate.getVersion();
+    }
+
+    // Flushes, then runs the task on the writer thread once everything queued before it is written,
+    // so it sees the store as memory left it and no save overlaps it
+    public <T> CompletableFuture<T> afterPendingWrites(Callable<T> task) {
+        flush();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public void forget(String crateName) {
+        String key = crateName.toLowerCase();
+        dirtyCrates.remove(key);
+        writtenVersions.remove(key);
+    }
+
+    public void delete(String crateName) {
+        String key = crateName.toLowerCase();
+        dirtyCrates.remove(key);
+        writtenVersions.remove(key);
+
+        // Same single writer as saves, so a delete can never be overtaken by an older pending write
+        inFlight.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                writer.delete(crateName);
+                writer.sync();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to delete crate: " + crateName, e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    public void flush() {
+        if (dirtyCrates.isEmpty()) return;
+
+        // Snapshots are immutable, so only capturing them has to happen here - serialization and I/O run on the writer
+        List<Crate> batch = new ArrayList<>(dirtyCrates.size());
+        List<CrateContents> snapshots = new ArrayList<>(dirtyCrates.size());
+        for (String key : List.copyOf(dirtyCrates.keySet())) {
+            Crate crate = dirtyCrates.remove(key);
+            if (crate == null) continue;
+
+            CrateContents contents = crate.getContents();
+            Long written = writtenVersions.get(key);
+            if (written != null && written == contents.getVersion()) continue;
+
+            batch.add(crate);
+            snapshots.add(contents);
+        }
+
+        if (batch.isEmpty()) return;
+
+        long queuedAt = System.nanoTime();
+        inFlight.addAndGet(batch.size());
+        executor.execute(() -> writeBatch(batch, snapshots, queuedAt));
+    }
+
+    private void writeBatch(List<Crate> batch, List<CrateContents> snapshots, long queuedAt) {
+        List<Integer> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Crate crate = batch.get(i);
+            try {
+                writer.write(crate.getName(), snapshots.get(i));
+                written.add(i);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save crate: " + crate.getName(), e);
+                dirtyCrates.putIfAbsent(crate.getName().toLowerCase(), crate);
+            }
+        }
+
+        // A write only counts once the batch is durable, otherwise the crates go back to the dirty set
+        boolean synced;
+        try {
+            writer.sync();
+            synced = true;
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to sync crate batch", e);
+            synced = false;
+        }
+
+        for (int i : written) {
+            Crate crate = batch.get(i);
+            if (synced) {
+                writtenVersions.put(crate.getName().toLowerCase(), snapshots.get(i).getVersion());
+                cratesWritten.incrementAndGet();
+            } else {
+                dirtyCrates.putIfAbsent(crate.getName().toLowerCase(), crate);
+            }
+        }
+        inFlight.addAndGet(-batch.size());
+
+        long elapsed = System.nanoTime() - queuedAt;
+        flushes.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public void shutdown(long timeoutMillis) {
+        flushTask.cancel();
+        flush();
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Crate writer did not finish within " + timeoutMillis + "ms, "
+                    + inFlight.get() + " writes still pending");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return dirtyCrates.size() + inFlight.get();
+    }
+
+    public int getDirtyCount() {
+        return dirtyCrates.size();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public long getCoalescedEdits() {
+        return coalescedEdits.get();
+    }
+
+    public long getCratesWritten() {
+        return cratesWritten.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public double getAverageFlushMillis() {
+        long count = flushes.get();
+        return count == 0 ? 0.0 : totalFlushNanos.get() / (double) count / 1_000_000.0;
+    }
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos.get() / 1_000_000.0;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+}
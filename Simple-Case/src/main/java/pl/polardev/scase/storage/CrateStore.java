@@ -0,0 +1,21 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.model.Crate;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+public interface CrateStore extends CrateWriter {
+    // Keys are lower-case crate names; failed crates could not be decoded, stale ones should be rewritten
+    record LoadResult(Map<String, Crate> crates, Set<String> failed, Set<String> stale) {
+    }
+
+    String getType();
+
+    void open() throws IOException;
+
+    LoadResult loadAll() throws IOException;
+
+    void close();
+}
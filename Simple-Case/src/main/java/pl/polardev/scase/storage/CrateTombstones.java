@@ -0,0 +1,61 @@
+package pl.polardev.scase.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Names of crates removed with /admincase delete, one per line in deleted-crates.txt. Their blocks in chunks that
+// weren't loaded at the time are dropped when those chunks load. A crate that is merely missing (file moved away,
+// failed to load) has no tombstone, so its blocks wait for it to come back.
+public class CrateTombstones {
+    private static final String FILE_NAME = "deleted-crates.txt";
+
+    private final Path folder;
+    private final AtomicFileWriter fileWriter;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+    public CrateTombstones(Path folder, AtomicFileWriter.SyncMode syncMode) {
+        this.folder = folder;
+        this.fileWriter = new AtomicFileWriter(folder, syncMode);
+    }
+
+    public void load() throws IOException {
+        names.clear();
+        try {
+            for (String line : Files.readAllLines(folder.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    names.add(line.trim().toLowerCase());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing deleted yet
+        }
+    }
+
+    public boolean contains(String lowerName) {
+        return names.contains(lowerName);
+    }
+
+    public void add(String lowerName) throws IOException {
+        if (names.add(lowerName)) {
+            save();
+        }
+    }
+
+    // A new crate with the same name takes over whatever blocks the old one still has
+    public void remove(String lowerName) throws IOException {
+        if (names.remove(lowerName)) {
+            save();
+        }
+    }
+
+    private synchronized void save() throws IOException {
+        String content = String.join("\n", new TreeSet<>(names));
+        fileWriter.write(FILE_NAME, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
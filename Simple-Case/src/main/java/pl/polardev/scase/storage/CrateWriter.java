@@ -0,0 +1,14 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.IOException;
+
+public interface CrateWriter {
+    void write(String name, CrateContents contents) throws IOException;
+
+    void delete(String name) throws IOException;
+
+    // Called once after every batch, lets the writer make the whole batch durable in one go
+    void sync() throws IOException;
+}
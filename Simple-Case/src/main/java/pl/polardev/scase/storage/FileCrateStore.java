@@ -0,0 +1,217 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+public class FileCrateStore implements CrateStore {
+    private static final int MAX_LOADER_THREADS = 8;
+
+    private final CasePlugin plugin;
+    private final File folder;
+    private final CrateCodec codec;
+    private final CrateCodec otherCodec;
+    private final AtomicFileWriter fileWriter;
+    // Last state this store left each file in (modification time, -1 when deleted), lets the watcher skip our own writes
+    private final Map<String, Long> ownFileStates = new ConcurrentHashMap<>();
+
+    public FileCrateStore(CasePlugin plugin, File folder, CrateCodec codec, CrateCodec otherCodec,
+                          AtomicFileWriter.SyncMode syncMode) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.codec = codec;
+        this.otherCodec = otherCodec;
+        this.fileWriter = new AtomicFileWriter(folder.toPath(), syncMode);
+    }
+
+    @Override
+    public String getType() {
+        return "file";
+    }
+
+    @Override
+    public void open() throws IOException {
+        Files.createDirectories(folder.toPath());
+
+        int removed = fileWriter.cleanupTemporaryFiles();
+        if (removed > 0) {
+            plugin.getLogger().warning("Removed " + removed + " unfinished crate writes left by a previous crash");
+        }
+    }
+
+    @Override
+    public LoadResult loadAll() throws IOException {
+        long started = System.nanoTime();
+
+        File[] files = folder.listFiles((dir, name) -> codecFor(name) != null);
+        if (files == null || files.length == 0) {
+            return new LoadResult(Map.of(), Set.of(), Set.of());
+        }
+
+        // When a crate exists in both formats the configured one wins, the other gets replaced on the next save
+        Map<String, File> sources = new LinkedHashMap<>();
+        for (File file : files) {
+            String lowerName = stripExtension(file.getName()).toLowerCase();
+            if (!sources.containsKey(lowerName) || file.getName().endsWith(codec.getExtension())) {
+                sources.put(lowerName, file);
+            }
+        }
+
+        long listingNanos = System.nanoTime() - started;
+        LongAdder readingNanos = new LongAdder();
+        LongAdder decodingNanos = new LongAdder();
+
+        int threads = Math.min(sources.size(), Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_LOADER_THREADS)));
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService loader = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Simple-Case Loader-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, Future<Crate>> pending = new LinkedHashMap<>();
+        for (Map.Entry<String, File> entry : sources.entrySet()) {
+            File file = entry.getValue();
+            pending.put(entry.getKey(), loader.submit(() -> loadCrateFile(file, readingNanos, decodingNanos)));
+        }
+
+        Map<String, Crate> loaded = new HashMap<>();
+        Set<String> failed = new HashSet<>();
+        Set<String> stale = new HashSet<>();
+        try {
+            for (Map.Entry<String, Future<Crate>> entry : pending.entrySet()) {
+                try {
+                    loaded.put(entry.getKey(), entry.getValue().get());
+                    if (!sources.get(entry.getKey()).getName().endsWith(codec.getExtension())) {
+                        stale.add(entry.getKey());
+                    }
+                } catch (ExecutionException e) {
+                    failed.add(entry.getKey());
+                    plugin.getLogger().log(Level.WARNING, "Failed to load crate from file: "
+                        + sources.get(entry.getKey()).getName(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Crate loading interrupted", e);
+        } finally {
+            loader.shutdownNow();
+        }
+
+        plugin.getLogger().info(String.format(
+            "Read %d crate files in %.1fms on %d threads (listing %.1fms, reading %.1fms, decoding %.1fms summed over threads)",
+            sources.size(), (System.nanoTime() - started) / 1_000_000.0, threads,
+            listingNanos / 1_000_000.0, readingNanos.sum() / 1_000_000.0, decodingNanos.sum() / 1_000_000.0));
+
+        return new LoadResult(loaded, failed, stale);
+    }
+
+    private Crate loadCrateFile(File file, LongAdder readingNanos, LongAdder decodingNanos) throws IOException {
+        long phaseStart = System.nanoTime();
+        byte[] data = Files.readAllBytes(file.toPath());
+        long readDone = System.nanoTime();
+        readingNanos.add(readDone - phaseStart);
+
+        Crate crate = codecFor(file.getName()).decode(stripExtension(file.getName()), data);
+        decodingNanos.add(System.nanoTime() - readDone);
+        return crate;
+    }
+
+    private CrateCodec codecFor(String fileName) {
+        if (fileName.endsWith(codec.getExtension())) return codec;
+        if (fileName.endsWith(otherCodec.getExtension())) return otherCodec;
+        return null;
+    }
+
+    private String stripExtension(String fileName) {
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    public Crate readCrate(String baseName) throws IOException {
+        for (CrateCodec candidate : List.of(codec, otherCodec)) {
+            Path file = folder.toPath().resolve(baseName + candidate.getExtension());
+            if (Files.exists(file)) {
+                return candidate.decode(baseName, Files.readAllBytes(file));
+            }
+        }
+        return null;
+    }
+
+    public boolean isCrateFile(String fileName) {
+        return codecFor(fileName) != null;
+    }
+
+    public String getBaseName(String fileName) {
+        return stripExtension(fileName);
+    }
+
+    public boolean isOwnChange(String baseName) {
+        for (CrateCodec candidate : List.of(codec, otherCodec)) {
+            String fileName = baseName + candidate.getExtension();
+            Long expected = ownFileStates.get(fileName);
+            long actual = fileState(folder.toPath().resolve(fileName));
+            if (expected == null ? actual != -1L : expected != actual) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long fileState(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+
+    @Override
+    public void write(String name, CrateContents contents) throws IOException {
+        String fileName = name + codec.getExtension();
+        fileWriter.write(fileName, codec.encode(name, contents));
+        ownFileStates.put(fileName, fileState(folder.toPath().resolve(fileName)));
+
+        fileWriter.delete(name + otherCodec.getExtension());
+        ownFileStates.put(name + otherCodec.getExtension(), -1L);
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        fileWriter.delete(name + codec.getExtension());
+        fileWriter.delete(name + otherCodec.getExtension());
+        ownFileStates.put(name + codec.getExtension(), -1L);
+        ownFileStates.put(name + otherCodec.getExtension(), -1L);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        fileWriter.sync();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,92 @@
+package pl.polardev.scase.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// One small binary file per player in keys/ - crate names are stored because ledger ids only live for one run
+public class KeyLedgerStore {
+    private static final int MAGIC = 0x534B4559; // "SKEY"
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".keys";
+
+    private final File folder;
+    private final AtomicFileWriter fileWriter;
+
+    public KeyLedgerStore(File folder, AtomicFileWriter.SyncMode syncMode) {
+        this.folder = folder;
+        this.fileWriter = new AtomicFileWriter(folder.toPath(), syncMode);
+    }
+
+    public void open() throws IOException {
+        Files.createDirectories(folder.toPath());
+        fileWriter.cleanupTemporaryFiles();
+    }
+
+    // Returns null when the player has never had a ledger file
+    public Map<String, Integer> load(UUID playerId) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(path(playerId));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a key ledger file: " + playerId);
+            }
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported key ledger version " + version + " for " + playerId);
+            }
+
+            int count = in.readInt();
+            Map<String, Integer> balances = new HashMap<>(Math.max(4, count * 2));
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readUTF(), in.readInt());
+            }
+            return balances;
+        }
+    }
+
+    public void write(UUID playerId, Map<String, Integer> balances) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + balances.size() * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(balances.size());
+            for (Map.Entry<String, Integer> entry : balances.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        }
+        fileWriter.write(playerId + EXTENSION, bytes.toByteArray());
+    }
+
+    public void quarantine(UUID playerId) {
+        Path source = path(playerId);
+        try {
+            Files.move(source, source.resolveSibling(playerId + EXTENSION + ".broken-" + System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Nothing left to protect if it can't even be moved
+        }
+    }
+
+    public void sync() throws IOException {
+        fileWriter.sync();
+    }
+
+    private Path path(UUID playerId) {
+        return folder.toPath().resolve(playerId + EXTENSION);
+    }
+}
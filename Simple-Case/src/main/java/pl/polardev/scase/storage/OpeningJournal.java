@@ -0,0 +1,235 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.helper.ItemFingerprint;
+import pl.polardev.scase.model.Crate;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Append-only log of every crate opening - callers only enqueue, the journal thread formats and writes
+public class OpeningJournal {
+    public enum OpenMode {
+        NORMAL, ANIMATION, BULK
+    }
+
+    private record Entry(long timestamp, UUID playerId, String crateName, ItemStack reward, long fingerprint, int count, OpenMode mode) {
+    }
+
+    private static final String SEGMENT_PREFIX = "openings-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final DateTimeFormatter SEGMENT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int MAX_PENDING = 100_000;
+
+    private final CasePlugin plugin;
+    private final File folder;
+    private final boolean enabled;
+    private final long segmentSizeBytes;
+    private final boolean compressClosed;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ScheduledExecutorService executor;
+
+    // Only touched on the journal thread
+    private Path segment;
+    private BufferedWriter segmentWriter;
+    private final StringBuilder line = new StringBuilder(160);
+
+    public OpeningJournal(CasePlugin plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "journal");
+        this.enabled = plugin.getConfig().getBoolean("journal.enabled", true);
+        this.segmentSizeBytes = Math.max(1, plugin.getConfig().getLong("journal.segment-size-mb", 16)) * 1024 * 1024;
+        this.compressClosed = plugin.getConfig().getBoolean("journal.compress-closed", true);
+
+        if (!enabled) {
+            this.executor = null;
+            return;
+        }
+
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simple-Case Opening Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Segments left open by a previous run (or a crash) are closed now
+        executor.execute(this::compressLeftoverSegments);
+        executor.scheduleWithFixedDelay(this::drain, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // The fingerprint comes from the crate snapshot the reward was drawn from, so nothing is serialized per opening
+    public void record(Player player, Crate crate, ItemStack reward, long fingerprint, int count, OpenMode mode) {
+        if (!enabled || reward == null || count <= 0) return;
+
+        // Bounded so a stuck disk can't eat the heap; the counter shows up in /admincase stats
+        if (pendingCount.incrementAndGet() > MAX_PENDING) {
+            pendingCount.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.offer(new Entry(System.currentTimeMillis(), player.getUniqueId(), crate.getName(), reward, fingerprint, count, mode));
+    }
+
+    private void drain() {
+        if (pending.isEmpty()) return;
+
+        try {
+            if (segmentWriter == null) {
+                openSegment();
+            }
+
+            Entry entry;
+            int batch = 0;
+            while ((entry = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                segmentWriter.write(format(entry));
+                batch++;
+            }
+            segmentWriter.flush();
+            written.addAndGet(batch);
+
+            if (Files.size(segment) >= segmentSizeBytes) {
+                rotate();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to write opening journal", e);
+            closeSegment();
+        }
+    }
+
+    private String format(Entry entry) {
+        line.setLength(0);
+        line.append(Instant.ofEpochMilli(entry.timestamp())).append('\t')
+            .append(entry.playerId()).append('\t')
+            .append(entry.crateName()).append('\t')
+            .append(entry.mode()).append('\t')
+            .append(entry.reward().getType().getKey()).append('\t')
+            .append(entry.reward().getAmount()).append('\t')
+            .append(entry.count()).append('\t')
+            .append(ItemFingerprint.format(entry.fingerprint())).append('\n');
+        return line.toString();
+    }
+
+    private void openSegment() throws IOException {
+        Path path = folder.toPath().resolve(SEGMENT_PREFIX + LocalDateTime.now().format(SEGMENT_FORMAT) + SEGMENT_SUFFIX);
+        segmentWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segment = path;
+    }
+
+    private void rotate() {
+        if (segment == null) return;
+
+        Path closed = segment;
+        closeSegment();
+        if (compressClosed) {
+            compress(closed);
+        }
+    }
+
+    private void closeSegment() {
+        if (segmentWriter != null) {
+            try {
+                segmentWriter.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to close opening journal segment", e);
+            }
+        }
+        segmentWriter = null;
+        segment = null;
+    }
+
+    private void compressLeftoverSegments() {
+        if (!compressClosed) return;
+
+        try (Stream<Path> files = Files.list(folder.toPath())) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(this::compress);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to list opening journal segments", e);
+        }
+    }
+
+    private void compress(Path source) {
+        Path target = source.resolveSibling(source.getFileName() + ".gz");
+        Path temp = source.resolveSibling(source.getFileName() + ".gz" + AtomicFileWriter.TEMP_SUFFIX);
+
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to compress opening journal segment " + source.getFileName(), e);
+            return;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to replace opening journal segment " + source.getFileName(), e);
+        }
+    }
+
+    public void shutdown(long timeoutMillis) {
+        if (executor == null) return;
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Opening journal thread did not stop within " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything still queued is written by the caller thread, the journal thread is gone by now
+        drain();
+        rotate();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,107 @@
+package pl.polardev.scase.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Key grants for offline players - one append-only "crate<TAB>amount" file per player in grants/
+public class PendingGrantStore {
+    private static final String EXTENSION = ".grants";
+
+    private final File folder;
+    private final AtomicFileWriter fileWriter;
+    private final Logger logger;
+
+    public PendingGrantStore(File folder, AtomicFileWriter.SyncMode syncMode, Logger logger) {
+        this.folder = folder;
+        this.fileWriter = new AtomicFileWriter(folder.toPath(), syncMode);
+        this.logger = logger;
+    }
+
+    public Map<UUID, Map<String, Integer>> loadAll() throws IOException {
+        Files.createDirectories(folder.toPath());
+        fileWriter.cleanupTemporaryFiles();
+
+        Map<UUID, Map<String, Integer>> grants = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder.toPath(), "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                UUID playerId;
+                try {
+                    playerId = UUID.fromString(fileName.substring(0, fileName.length() - EXTENSION.length()));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Ignoring pending grant file with invalid name: " + fileName);
+                    continue;
+                }
+
+                Map<String, Integer> playerGrants = parse(Files.readAllLines(file, StandardCharsets.UTF_8), fileName);
+                if (!playerGrants.isEmpty()) {
+                    grants.put(playerId, playerGrants);
+                }
+            }
+        }
+        return grants;
+    }
+
+    private Map<String, Integer> parse(List<String> lines, String fileName) {
+        Map<String, Integer> grants = new HashMap<>();
+        for (String line : lines) {
+            int separator = line.indexOf('\t');
+            if (separator <= 0) continue;
+
+            try {
+                int amount = Integer.parseInt(line.substring(separator + 1).trim());
+                if (amount > 0) {
+                    grants.merge(line.substring(0, separator).toLowerCase(), amount, Math::addExact);
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                // A torn last line from a crash mid-append, the rest of the file is still valid
+                logger.log(Level.WARNING, "Skipping invalid pending grant line in " + fileName + ": " + line);
+            }
+        }
+        return grants;
+    }
+
+    // Appending one line is all a grant costs; with fsync enabled it is on disk before this returns
+    public void append(UUID playerId, String crateName, int amount) throws IOException {
+        byte[] line = (crateName + '\t' + amount + '\n').getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(path(playerId), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fileWriter.getSyncMode() != AtomicFileWriter.SyncMode.NONE) {
+                channel.force(false);
+            }
+        }
+    }
+
+    // Rewrites what is left for a player after a delivery, or removes the file when nothing is
+    public void replace(UUID playerId, Map<String, Integer> remaining) throws IOException {
+        if (remaining.isEmpty()) {
+            Files.deleteIfExists(path(playerId));
+        } else {
+            StringBuilder content = new StringBuilder();
+            remaining.forEach((crateName, amount) -> content.append(crateName).append('\t').append(amount).append('\n'));
+            fileWriter.write(playerId + EXTENSION, content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        fileWriter.sync();
+    }
+
+    private Path path(UUID playerId) {
+        return folder.toPath().resolve(playerId + EXTENSION);
+    }
+}
@@ -0,0 +1,205 @@
+package pl.polardev.scase.storage;
+
+import pl.polardev.scase.CasePlugin;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+// Embedded SQLite store - the driver ships with the server, rows hold the binary crate encoding
+public class SqliteCrateStore implements CrateStore {
+    private static final String UPSERT_SQL = "INSERT INTO crates (name, display_name, data, updated_at) VALUES (?, ?, ?, ?) "
+        + "ON CONFLICT(name) DO UPDATE SET display_name = excluded.display_name, data = excluded.data, updated_at = excluded.updated_at";
+    private static final String HISTORY_SQL = "INSERT INTO crate_history (name, data, saved_at) VALUES (?, ?, ?)";
+    private static final String PRUNE_SQL = "DELETE FROM crate_history WHERE name = ? AND id NOT IN "
+        + "(SELECT id FROM crate_history WHERE name = ? ORDER BY id DESC LIMIT ?)";
+    private static final String DELETE_SQL = "DELETE FROM crates WHERE name = ?";
+
+    private final CasePlugin plugin;
+    private final File databaseFile;
+    private final BinaryCrateCodec codec;
+    private final int historyLimit;
+    private final Set<String> pendingPrune = new LinkedHashSet<>();
+
+    private Connection connection;
+    private PreparedStatement upsertStatement;
+    private PreparedStatement historyStatement;
+    private PreparedStatement pruneStatement;
+    private PreparedStatement deleteStatement;
+    private int pendingRows;
+
+    public SqliteCrateStore(CasePlugin plugin, File databaseFile, int historyLimit) {
+        this.plugin = plugin;
+        this.databaseFile = databaseFile;
+        this.codec = new BinaryCrateCodec(true);
+        this.historyLimit = historyLimit;
+    }
+
+    @Override
+    public String getType() {
+        return "sqlite";
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS crates ("
+                    + "name TEXT PRIMARY KEY, display_name TEXT NOT NULL, data BLOB NOT NULL, updated_at INTEGER NOT NULL)");
+                statement.execute("CREATE TABLE IF NOT EXISTS crate_history ("
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, data BLOB NOT NULL, saved_at INTEGER NOT NULL)");
+                statement.execute("CREATE INDEX IF NOT EXISTS crate_history_name ON crate_history (name, id)");
+            }
+
+            connection.setAutoCommit(false);
+            upsertStatement = connection.prepareStatement(UPSERT_SQL);
+            historyStatement = connection.prepareStatement(HISTORY_SQL);
+            pruneStatement = connection.prepareStatement(PRUNE_SQL);
+            deleteStatement = connection.prepareStatement(DELETE_SQL);
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Failed to open crate database " + databaseFile.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized LoadResult loadAll() throws IOException {
+        long started = System.nanoTime();
+        Map<String, Crate> loaded = new HashMap<>();
+        Set<String> failed = new HashSet<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT name, display_name, data FROM crates")) {
+            while (rows.next()) {
+                String key = rows.getString(1);
+                try {
+                    loaded.put(key, codec.decode(rows.getString(2), rows.getBytes(3)));
+                } catch (IOException e) {
+                    failed.add(key);
+                    plugin.getLogger().log(Level.WARNING, "Failed to load crate from database: " + key, e);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Failed to load crates from database", e);
+        }
+
+        plugin.getLogger().info(String.format("Read %d crates from %s in %.1fms",
+            loaded.size() + failed.size(), databaseFile.getName(), (System.nanoTime() - started) / 1_000_000.0));
+
+        return new LoadResult(loaded, failed, Set.of());
+    }
+
+    // Rows are only batched here, sync() sends the whole flush as one transaction
+    @Override
+    public synchronized void write(String name, CrateContents contents) throws IOException {
+        byte[] data = codec.encode(name, contents);
+        long now = System.currentTimeMillis();
+        String key = name.toLowerCase();
+
+        try {
+            upsertStatement.setString(1, key);
+            upsertStatement.setString(2, name);
+            upsertStatement.setBytes(3, data);
+            upsertStatement.setLong(4, now);
+            upsertStatement.addBatch();
+
+            if (historyLimit > 0) {
+                historyStatement.setString(1, key);
+                historyStatement.setBytes(2, data);
+                historyStatement.setLong(3, now);
+                historyStatement.addBatch();
+                pendingPrune.add(key);
+            }
+            pendingRows++;
+        } catch (SQLException e) {
+            throw new IOException("Failed to queue crate " + name, e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String name) throws IOException {
+        try {
+            deleteStatement.setString(1, name.toLowerCase());
+            deleteStatement.addBatch();
+            pendingRows++;
+        } catch (SQLException e) {
+            throw new IOException("Failed to queue deletion of crate " + name, e);
+        }
+    }
+
+    @Override
+    public synchronized void sync() throws IOException {
+        if (pendingRows == 0) return;
+
+        try {
+            upsertStatement.executeBatch();
+            deleteStatement.executeBatch();
+            if (historyLimit > 0) {
+                historyStatement.executeBatch();
+                for (String key : pendingPrune) {
+                    pruneStatement.setString(1, key);
+                    pruneStatement.setString(2, key);
+                    pruneStatement.setInt(3, historyLimit);
+                    pruneStatement.addBatch();
+                }
+                pruneStatement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            // A failed batch must not be replayed with the next one, the save queue re-queues its crates itself
+            try {
+                upsertStatement.clearBatch();
+                deleteStatement.clearBatch();
+                historyStatement.clearBatch();
+                pruneStatement.clearBatch();
+            } catch (SQLException clearError) {
+                e.addSuppressed(clearError);
+            }
+            throw new IOException("Failed to commit crate batch", e);
+        } finally {
+            pendingPrune.clear();
+            pendingRows = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) return;
+
+        try {
+            sync();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to commit pending crate rows on close", e);
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close crate database", e);
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,82 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class YamlCrateCodec implements CrateCodec {
+
+    @Override
+    public String getExtension() {
+        return ".yml";
+    }
+
+    @Override
+    public byte[] encode(String name, CrateContents contents) {
+        YamlConfiguration config = new YamlConfiguration();
+
+        config.set("name", name);
+        config.set("display-item", contents.getDisplayItem());
+
+        // Save key item if exists
+        if (contents.getKeyItem() != null) {
+            config.set("key-item", contents.getKeyItem());
+        }
+
+        List<ItemStack> items = contents.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            config.set("items." + i, items.get(i));
+            config.set("weights." + i, contents.getWeight(i));
+        }
+
+        return config.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Crate decode(String name, byte[] data) throws IOException {
+        // Bukkit deserializes ItemStacks while building the YAML tree
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid YAML in crate " + name, e);
+        }
+
+        ItemStack displayItem = config.getItemStack("display-item");
+        if (displayItem == null) {
+            throw new IOException("No display item found for crate: " + name);
+        }
+
+        Crate crate = new Crate(name, displayItem);
+
+        ItemStack keyItem = config.getItemStack("key-item");
+        if (keyItem != null) {
+            crate.setKeyItem(keyItem);
+        }
+
+        ConfigurationSection itemsSection = config.getConfigurationSection("items");
+        ConfigurationSection weightsSection = config.getConfigurationSection("weights");
+        if (itemsSection != null) {
+            List<ItemStack> items = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            for (String key : itemsSection.getKeys(false)) {
+                ItemStack item = itemsSection.getItemStack(key);
+                if (item != null) {
+                    items.add(item);
+                    weights.add(weightsSection != null ? weightsSection.getInt(key, Crate.DEFAULT_WEIGHT) : Crate.DEFAULT_WEIGHT);
+                }
+            }
+            crate.setItems(items, weights.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        return crate;
+    }
+}
@@ -0,0 +1,63 @@
+package pl.polardev.scase;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// A chest inventory that counts setItem calls - each one is a slot update packet on a real server
+public final class TestInventory implements InvocationHandler {
+    private final ItemStack[] contents;
+    private final Inventory inventory;
+    private long setItemCalls;
+
+    public TestInventory(int size) {
+        this.contents = new ItemStack[size];
+        this.inventory = (Inventory) Proxy.newProxyInstance(Inventory.class.getClassLoader(), new Class<?>[]{Inventory.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "setItem" -> {
+                contents[(int) args[0]] = (ItemStack) args[1];
+                setItemCalls++;
+                yield null;
+            }
+            case "getItem" -> contents[(int) args[0]];
+            case "getContents" -> contents.clone();
+            case "getSize" -> contents.length;
+            case "clear" -> {
+                for (int slot = 0; slot < contents.length; slot++) {
+                    if (contents[slot] != null) {
+                        contents[slot] = null;
+                        setItemCalls++;
+                    }
+                }
+                yield null;
+            }
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "TestInventory[" + contents.length + "]";
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    public Inventory get() {
+        return inventory;
+    }
+
+    public ItemStack getItem(int slot) {
+        return contents[slot];
+    }
+
+    public long getSetItemCalls() {
+        return setItemCalls;
+    }
+
+    public void resetCounter() {
+        setItemCalls = 0;
+    }
+}
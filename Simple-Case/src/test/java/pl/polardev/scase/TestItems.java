@@ -0,0 +1,217 @@
+package pl.polardev.scase;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataContainerView;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.withSettings;
+
+// Item (de)serialization needs a running server, so tests use stand-in ItemStacks with synthetic serialized forms:
+// a Bukkit-style map for YAML and a gzip of that map for the byte form, about the size Paper's NBT bytes are.
+// Variants differ in meta size, like crates mixing plain blocks with named, enchanted gear.
+public final class TestItems {
+    private TestItems() {
+    }
+
+    public static ItemStack item(int variant) {
+        Map<String, Object> serialized = serializedMap(variant);
+        Material type = variant % 3 == 0 ? Material.STONE : variant % 3 == 1 ? Material.CHEST : Material.PAPER;
+        return new TestItem(type, serialized, gzip(serialized.toString()), null);
+    }
+
+    // A key item carrying the PDC crate tag PhysicalKeyIndex stamps; the tag is part of its serialized form too
+    public static ItemStack key(int variant, String crateTag) {
+        Map<String, Object> serialized = serializedMap(variant);
+        serialized.put("PublicBukkitValues", Map.of("simple-case:key_crate", crateTag));
+        return new TestItem(Material.TRIPWIRE_HOOK, serialized, gzip(serialized.toString()), crateTag);
+    }
+
+    // A key handed out before PhysicalKeyIndex stamped them: the same item, minus the tag
+    public static ItemStack untaggedKey(int variant) {
+        Map<String, Object> serialized = serializedMap(variant);
+        return new TestItem(Material.TRIPWIRE_HOOK, serialized, gzip(serialized.toString()), null);
+    }
+
+    public static Map<String, Object> serializedMap(int variant) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("v", 3953);
+        map.put("type", variant % 3 == 0 ? "STONE" : variant % 3 == 1 ? "CHEST" : "PAPER");
+
+        int metaSize = variant % 4;
+        if (metaSize > 0) {
+            Map<String, Object> meta = new LinkedHashMap<>();
+            meta.put("meta-type", "UNSPECIFIC");
+            meta.put("display-name", "{\"text\":\"\",\"extra\":[{\"text\":\"Reward " + variant + "\",\"color\":\"gold\",\"bold\":true}]}");
+            if (metaSize > 1) {
+                meta.put("lore", List.of(
+                    "{\"text\":\"\",\"extra\":[{\"text\":\"Legendary drop\",\"color\":\"gray\",\"italic\":false}]}",
+                    "{\"text\":\"\",\"extra\":[{\"text\":\"Variant " + variant + "\",\"color\":\"dark_gray\",\"italic\":false}]}"));
+            }
+            if (metaSize > 2) {
+                Map<String, Object> enchants = new LinkedHashMap<>();
+                enchants.put("SHARPNESS", 5);
+                enchants.put("UNBREAKING", 3);
+                enchants.put("MENDING", 1);
+                enchants.put("LOOTING", 3);
+                meta.put("enchants", enchants);
+                meta.put("Damage", variant % 100);
+            }
+            map.put("meta", meta);
+        }
+        return map;
+    }
+
+    // Both static factories hand back a new copy of one item. They stand in for Paper's item building (NBT or map
+    // to item, data fixing, meta), which is NOT measured here - only the cost around it that the formats differ in.
+    // Static mocks only apply to this thread.
+    public static MockedStatic<ItemStack> mockDeserialization() {
+        ItemStack prototype = item(0);
+        MockedStatic<ItemStack> statics = Mockito.mockStatic(ItemStack.class, withSettings().stubOnly());
+        statics.when(() -> ItemStack.deserializeBytes(any())).thenAnswer(invocation -> prototype.clone());
+        statics.when(() -> ItemStack.deserialize(any())).thenAnswer(invocation -> prototype.clone());
+        return statics;
+    }
+
+    // A plain subclass rather than a Mockito mock: mock calls walk the stack, which would swamp what benchmarks measure
+    private static final class TestItem extends ItemStack {
+        private final Material type;
+        private Map<String, Object> serialized;
+        private byte[] bytes;
+        private String crateTag;
+        private PersistentDataContainerView container;
+
+        private TestItem(Material type, Map<String, Object> serialized, byte[] bytes, String crateTag) {
+            this.type = type;
+            this.serialized = serialized;
+            this.bytes = bytes;
+            this.crateTag = crateTag;
+        }
+
+        // A new stack like the real clone, though the real one also deep-copies the meta
+        @Override
+        public ItemStack clone() {
+            return new TestItem(type, serialized, bytes, crateTag);
+        }
+
+        @Override
+        public ItemStack asOne() {
+            return clone();
+        }
+
+        @Override
+        public ItemStack asQuantity(int amount) {
+            return clone();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public Material getType() {
+            return type;
+        }
+
+        @Override
+        public int getAmount() {
+            return 1;
+        }
+
+        @Override
+        public int getMaxStackSize() {
+            return 64;
+        }
+
+        @Override
+        public Map<String, Object> serialize() {
+            return serialized;
+        }
+
+        @Override
+        public byte[] serializeAsBytes() {
+            return bytes.clone();
+        }
+
+        @Override
+        public boolean hasItemMeta() {
+            return crateTag != null || serialized.containsKey("meta");
+        }
+
+        // Only ever asked for the key tag
+        @Override
+        public PersistentDataContainerView getPersistentDataContainer() {
+            if (container == null) {
+                container = (PersistentDataContainerView) Proxy.newProxyInstance(PersistentDataContainerView.class.getClassLoader(),
+                    new Class<?>[]{PersistentDataContainerView.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "get" -> crateTag;
+                        case "has" -> crateTag != null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+            }
+            return container;
+        }
+
+        // Only ever used to set or remove the key tag, which changes the serialized form like the real PDC does
+        @Override
+        public boolean editMeta(Consumer<? super ItemMeta> consumer) {
+            PersistentDataContainer container = (PersistentDataContainer) Proxy.newProxyInstance(PersistentDataContainer.class.getClassLoader(),
+                new Class<?>[]{PersistentDataContainer.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "set" -> retag((String) args[2]);
+                    case "remove" -> retag(null);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+            consumer.accept((ItemMeta) Proxy.newProxyInstance(ItemMeta.class.getClassLoader(), new Class<?>[]{ItemMeta.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getPersistentDataContainer")) return container;
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+            return true;
+        }
+
+        private Object retag(String tag) {
+            Map<String, Object> retagged = new LinkedHashMap<>(serialized);
+            retagged.remove("PublicBukkitValues");
+            if (tag != null) {
+                retagged.put("PublicBukkitValues", Map.of("simple-case:key_crate", tag));
+            }
+            serialized = retagged;
+            bytes = gzip(retagged.toString());
+            crateTag = tag;
+            return null;
+        }
+
+        // Like the real one, the comparison walks the whole meta
+        @Override
+        public boolean isSimilar(ItemStack other) {
+            return other != null && Arrays.equals(bytes, other.serializeAsBytes());
+        }
+    }
+
+    private static byte[] gzip(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,55 @@
+package pl.polardev.scase;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+// Players that only know their UUID, name and inventory contents. Dynamic proxies rather than Mockito mocks,
+// so benchmarks calling them on the hot path don't pay for Mockito's invocation tracking.
+public final class TestPlayers {
+    // 36 storage slots, 4 armor slots and the off hand
+    public static final int INVENTORY_SIZE = 41;
+
+    private TestPlayers() {
+    }
+
+    public static Player player(UUID uuid) {
+        return player(uuid, new ItemStack[INVENTORY_SIZE]);
+    }
+
+    public static Player player(UUID uuid, ItemStack[] contents) {
+        String name = "Player_" + uuid.toString().substring(0, 8);
+        PlayerInventory inventory = inventory(contents);
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getUniqueId" -> uuid;
+                case "getName" -> name;
+                case "getInventory" -> inventory;
+                case "isOnline" -> true;
+                case "hashCode" -> uuid.hashCode();
+                case "equals" -> proxy == args[0];
+                case "toString" -> name;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    // getContents hands out a copy, like the server's does
+    private static PlayerInventory inventory(ItemStack[] contents) {
+        return (PlayerInventory) Proxy.newProxyInstance(PlayerInventory.class.getClassLoader(), new Class<?>[]{PlayerInventory.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getContents" -> contents.clone();
+                case "getItem" -> contents[(int) args[0]];
+                case "setItem" -> {
+                    contents[(int) args[0]] = (ItemStack) args[1];
+                    yield null;
+                }
+                case "getSize" -> contents.length;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
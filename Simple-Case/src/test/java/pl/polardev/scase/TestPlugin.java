@@ -0,0 +1,79 @@
+package pl.polardev.scase;
+
+import org.bukkit.Server;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A CasePlugin without a server: config values come from a map (anything else gets the caller's default),
+// repeating tasks are collected instead of scheduled, so a test ticks them by hand
+public final class TestPlugin {
+    private final CasePlugin plugin;
+    private final List<Runnable> timers = new ArrayList<>();
+
+    public TestPlugin(Path dataFolder, Map<String, Object> config) {
+        plugin = mock(CasePlugin.class);
+        FileConfiguration configuration = mock(FileConfiguration.class, configAnswer(config));
+        BukkitScheduler scheduler = mock(BukkitScheduler.class);
+        Server server = mock(Server.class);
+
+        when(scheduler.runTaskTimer(any(Plugin.class), any(Runnable.class), anyLong(), anyLong())).thenAnswer(invocation -> {
+            timers.add(invocation.getArgument(1));
+            return mock(BukkitTask.class);
+        });
+        when(server.getScheduler()).thenReturn(scheduler);
+
+        when(plugin.getConfig()).thenReturn(configuration);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getDataFolder()).thenReturn(dataFolder.toFile());
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("Simple-Case"));
+        when(plugin.getName()).thenReturn("Simple-Case");
+    }
+
+    // A config section answering from a map the same way, for code that reads a whole section
+    public static ConfigurationSection section(Map<String, Object> values) {
+        return mock(ConfigurationSection.class, configAnswer(values));
+    }
+
+    private static Answer<Object> configAnswer(Map<String, Object> config) {
+        return invocation -> {
+            Object[] args = invocation.getArguments();
+            if (args.length > 0 && args[0] instanceof String path && config.containsKey(path)) {
+                return config.get(path);
+            }
+            if (args.length == 2 && invocation.getMethod().getName().startsWith("get")) {
+                return args[1];
+            }
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        };
+    }
+
+    public CasePlugin get() {
+        return plugin;
+    }
+
+    public List<Runnable> getTimers() {
+        return timers;
+    }
+
+    public void tick() {
+        for (Runnable timer : timers) {
+            timer.run();
+        }
+    }
+}
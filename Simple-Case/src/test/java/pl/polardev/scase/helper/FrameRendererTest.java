@@ -0,0 +1,56 @@
+package pl.polardev.scase.helper;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+import pl.polardev.scase.TestInventory;
+import pl.polardev.scase.TestItems;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FrameRendererTest {
+    private static final int[] SLOTS = {10, 11, 12, 13, 14};
+    private final List<ItemStack> prototypes = List.of(TestItems.item(0), TestItems.item(1), TestItems.item(2));
+
+    @Test
+    void firstFrameWritesEverySlot() {
+        TestInventory inventory = new TestInventory(27);
+        FrameRenderer renderer = new FrameRenderer(inventory.get(), SLOTS);
+
+        assertEquals(5, renderer.render(new int[]{0, 1, 2, 0, 1}, 0, prototypes));
+        assertEquals(5, inventory.getSetItemCalls());
+        assertSame(prototypes.get(2), inventory.getItem(12));
+    }
+
+    @Test
+    void unchangedSlotsAreNotWrittenAgain() {
+        TestInventory inventory = new TestInventory(27);
+        FrameRenderer renderer = new FrameRenderer(inventory.get(), SLOTS);
+        int[] reel = {0, 0, 0, 1, 0, 0, 0, 2};
+
+        renderer.render(reel, 0, prototypes);
+        inventory.resetCounter();
+
+        // 0 0 0 1 0 -> 0 0 1 0 0: only slots 12 and 13 change
+        assertEquals(2, renderer.render(reel, 1, prototypes));
+        // Same frame again writes nothing
+        assertEquals(0, renderer.render(reel, 1, prototypes));
+        // Frames can be skipped under load: 0 0 1 0 0 -> 1 0 0 0 2 changes slots 10, 12 and 14
+        assertEquals(3, renderer.render(reel, 3, prototypes));
+        assertEquals(5, inventory.getSetItemCalls());
+        assertSame(prototypes.get(2), inventory.getItem(14));
+    }
+
+    @Test
+    void emptyReelPositionsLeaveTheSlotAlone() {
+        TestInventory inventory = new TestInventory(27);
+        FrameRenderer renderer = new FrameRenderer(inventory.get(), SLOTS);
+
+        assertEquals(2, renderer.render(new int[]{-1, 1, -1, 2, -1}, 0, prototypes));
+        assertNull(inventory.getItem(10));
+        assertEquals(2, inventory.getSetItemCalls());
+    }
+}
@@ -0,0 +1,42 @@
+package pl.polardev.scase.inventory;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.objenesis.ObjenesisStd;
+import pl.polardev.scase.TestInventory;
+
+import java.util.function.BiConsumer;
+
+// The animation GUI with its server-side parts cut out: it draws into a TestInventory and hands the result to
+// a callback. Created through Objenesis, because the real constructor opens a Bukkit inventory.
+public class TestAnimationInventory extends CrateAnimationInventory {
+    private static final ObjenesisStd OBJENESIS = new ObjenesisStd();
+
+    private TestInventory inventory;
+    private BiConsumer<ItemStack, Long> onFinish;
+
+    private TestAnimationInventory() {
+        super(null, null, null);
+    }
+
+    public static TestAnimationInventory create(TestInventory inventory, BiConsumer<ItemStack, Long> onFinish) {
+        TestAnimationInventory gui = OBJENESIS.newInstance(TestAnimationInventory.class);
+        gui.inventory = inventory;
+        gui.onFinish = onFinish;
+        return gui;
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory.get();
+    }
+
+    public TestInventory getTestInventory() {
+        return inventory;
+    }
+
+    @Override
+    public void finishAnimation(ItemStack winningItem, long winningFingerprint) {
+        onFinish.accept(winningItem, winningFingerprint);
+    }
+}
@@ -0,0 +1,230 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import pl.polardev.scase.TestInventory;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.inventory.TestAnimationInventory;
+import pl.polardev.scase.model.AnimationProfile;
+import pl.polardev.scase.model.Crate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnimationManagerTest {
+    private static final AnimationProfile PROFILE = AnimationProfile.CLASSIC;
+    private static final int MIDDLE_SLOT = PROFILE.getSlot(PROFILE.getSlotCount() / 2);
+
+    @TempDir
+    Path dataFolder;
+
+    private TestPlugin plugin;
+    private AnimationManager animations;
+    private final List<ItemStack> winners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        plugin = new TestPlugin(dataFolder, Map.of());
+        animations = new AnimationManager(plugin.get());
+    }
+
+    @Test
+    void skewedCrateSendsFarFewerSlotUpdatesThanRedrawingEveryFrame() {
+        // One common reward and a few rare ones: the strip mostly shows the same item sliding by
+        Crate crate = new Crate("Common", TestItems.item(0));
+        crate.addItem(TestItems.item(1), 1000);
+        for (int i = 2; i < 6; i++) {
+            crate.addItem(TestItems.item(i), 10);
+        }
+
+        long total = 0;
+        int spins = 50;
+        for (int spin = 0; spin < spins; spin++) {
+            TestInventory inventory = spin(crate);
+            total += inventory.getSetItemCalls();
+            assertTrue(winners.get(spin).isSimilar(inventory.getItem(MIDDLE_SLOT)), "winner not in the middle slot");
+        }
+
+        long redrawEveryFrame = (long) spins * PROFILE.getFrameCount() * PROFILE.getSlotCount();
+        assertTrue(total * 5 < redrawEveryFrame, total + " slot updates, redrawing every frame takes " + redrawEveryFrame);
+        assertEquals(total, animations.getSlotWrites());
+        assertEquals(redrawEveryFrame - total, animations.getSlotsSkipped());
+    }
+
+    @Test
+    void singleRewardCrateIsDrawnOnce() {
+        Crate crate = new Crate("Single", TestItems.item(0));
+        crate.addItem(TestItems.item(7), 1);
+
+        TestInventory inventory = spin(crate);
+
+        assertEquals(PROFILE.getSlotCount(), inventory.getSetItemCalls());
+        assertTrue(winners.get(0).isSimilar(inventory.getItem(MIDDLE_SLOT)));
+    }
+
+    @Test
+    void evenCrateStillStopsOnTheWinner() {
+        Crate crate = new Crate("Even", TestItems.item(0));
+        for (int i = 1; i <= 12; i++) {
+            crate.addItem(TestItems.item(i), 1);
+        }
+
+        for (int spin = 0; spin < 20; spin++) {
+            TestInventory inventory = spin(crate);
+            assertTrue(inventory.getSetItemCalls() <= (long) PROFILE.getFrameCount() * PROFILE.getSlotCount());
+            assertTrue(winners.get(spin).isSimilar(inventory.getItem(MIDDLE_SLOT)), "winner not in the middle slot");
+        }
+    }
+
+    @Test
+    void stoppedAnimationNeitherDrawsNorFinishes() {
+        Crate crate = new Crate("Common", TestItems.item(0));
+        crate.addItem(TestItems.item(1), 1);
+        crate.addItem(TestItems.item(2), 1);
+        Player player = TestPlayers.player(UUID.randomUUID());
+        TestAnimationInventory gui = TestAnimationInventory.create(new TestInventory(27), (winner, fingerprint) -> winners.add(winner));
+
+        animations.startAnimation(player, gui, crate, PROFILE);
+        plugin.tick();
+        long drawn = gui.getTestInventory().getSetItemCalls();
+        animations.stopAnimation(player);
+        for (int t = 0; t <= PROFILE.getDuration(); t++) {
+            plugin.tick();
+        }
+
+        assertEquals(drawn, gui.getTestInventory().getSetItemCalls());
+        assertTrue(winners.isEmpty());
+        assertEquals(0, animations.getActiveAnimations());
+    }
+
+    // Far more spins than the budget draws per tick: the deferred queue has to rotate through all of them
+    @Test
+    void frameBudgetOfOneFinishesEverySpinOnItsWinner() {
+        useBudget(Map.of("frames-per-tick", 1));
+        Crate crate = evenCrate();
+
+        int spins = 30;
+        List<TestInventory> inventories = new ArrayList<>();
+        ItemStack[] spinWinners = new ItemStack[spins];
+        for (int spin = 0; spin < spins; spin++) {
+            int index = spin;
+            TestInventory inventory = new TestInventory(27);
+            inventories.add(inventory);
+            animations.startAnimation(TestPlayers.player(UUID.randomUUID()),
+                TestAnimationInventory.create(inventory, (winner, fingerprint) -> spinWinners[index] = winner), crate, PROFILE);
+        }
+
+        long maxTicks = (long) spins * PROFILE.getFrameCount() + PROFILE.getDuration();
+        for (long t = 0; t < maxTicks && animations.getActiveAnimations() > 0; t++) {
+            long rendered = animations.getFramesRendered();
+            plugin.tick();
+            assertTrue(animations.getFramesRendered() - rendered <= 1, "more frames than the budget in one tick");
+        }
+
+        assertEquals(0, animations.getActiveAnimations(), "a spin never finished");
+        assertEquals(0, animations.getDeferredCount());
+        assertTrue(animations.getFramesDeferred() > 0);
+        assertTrue(animations.getFramesDropped() > 0, "late frames were drawn instead of dropped");
+        for (int spin = 0; spin < spins; spin++) {
+            assertLastFrameShows(spinWinners[spin], inventories.get(spin));
+        }
+    }
+
+    @Test
+    void shortenModeDropsEveryOtherFrameButKeepsTheWinner() {
+        useBudget(Map.of("adaptive.enabled", true, "adaptive.shorten-mspt", 40.0, "adaptive.skip-mspt", 48.0));
+        try (MockedStatic<Bukkit> bukkit = mockTickTime(45.0)) {
+            Crate crate = evenCrate();
+            for (int spin = 0; spin < 10; spin++) {
+                long rendered = animations.getFramesRendered();
+                TestInventory inventory = spin(crate);
+
+                assertEquals(AnimationManager.LoadMode.SHORTEN, animations.getLoadMode());
+                assertTrue(animations.getFramesRendered() - rendered <= (PROFILE.getFrameCount() + 1) / 2 + 1,
+                    "shortened spin drew " + (animations.getFramesRendered() - rendered) + " frames");
+                assertLastFrameShows(winners.get(spin), inventory);
+            }
+            assertTrue(animations.getFramesDropped() > 0);
+        }
+    }
+
+    @Test
+    void skipModeJumpsStraightToTheLastFrame() {
+        useBudget(Map.of("adaptive.enabled", true, "adaptive.shorten-mspt", 40.0, "adaptive.skip-mspt", 48.0));
+        try (MockedStatic<Bukkit> bukkit = mockTickTime(60.0)) {
+            Crate crate = evenCrate();
+            for (int spin = 0; spin < 10; spin++) {
+                long rendered = animations.getFramesRendered();
+                TestInventory inventory = spin(crate);
+
+                assertEquals(AnimationManager.LoadMode.SKIP, animations.getLoadMode());
+                assertEquals(2, animations.getFramesRendered() - rendered, "first and last frame only");
+                assertLastFrameShows(winners.get(spin), inventory);
+            }
+        }
+    }
+
+    private void useBudget(Map<String, Object> budget) {
+        plugin = new TestPlugin(dataFolder, Map.of("animations.budget", TestPlugin.section(budget)));
+        animations = new AnimationManager(plugin.get());
+    }
+
+    // The load is sampled every 20 ticks, so the mode is in place before the first spin starts
+    private MockedStatic<Bukkit> mockTickTime(double mspt) {
+        MockedStatic<Bukkit> bukkit = Mockito.mockStatic(Bukkit.class);
+        bukkit.when(Bukkit::getAverageTickTime).thenReturn(mspt);
+        for (int t = 0; t < 20; t++) {
+            plugin.tick();
+        }
+        return bukkit;
+    }
+
+    private static Crate evenCrate() {
+        Crate crate = new Crate("Even", TestItems.item(0));
+        for (int i = 1; i <= 12; i++) {
+            crate.addItem(TestItems.item(i), 1);
+        }
+        return crate;
+    }
+
+    // The reel holds the pre-rolled winner in the middle of its last frame: finishing with any other item,
+    // or without drawing that frame, fails here
+    private static void assertLastFrameShows(ItemStack winner, TestInventory inventory) {
+        assertNotNull(winner, "spin never finished");
+        assertTrue(winner.isSimilar(inventory.getItem(MIDDLE_SLOT)), "winner not in the middle slot");
+        for (int i = 0; i < PROFILE.getSlotCount(); i++) {
+            assertNotNull(inventory.getItem(PROFILE.getSlot(i)), "last frame not fully drawn");
+        }
+    }
+
+    // Runs one opening to the end and returns the inventory it was drawn into
+    private TestInventory spin(Crate crate) {
+        int finished = winners.size();
+        TestInventory inventory = new TestInventory(27);
+        TestAnimationInventory gui = TestAnimationInventory.create(inventory, (winner, fingerprint) -> winners.add(winner));
+
+        animations.startAnimation(TestPlayers.player(UUID.randomUUID()), gui, crate, PROFILE);
+        for (int t = 0; t <= PROFILE.getDuration() && winners.size() == finished; t++) {
+            plugin.tick();
+        }
+
+        assertEquals(finished + 1, winners.size(), "animation did not finish within its duration");
+        assertNotNull(winners.get(finished));
+        return inventory;
+    }
+}
@@ -0,0 +1,75 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polardev.scase.TestInventory;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.inventory.TestAnimationInventory;
+import pl.polardev.scase.model.AnimationProfile;
+import pl.polardev.scase.model.Crate;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// What starting a spin allocates: the index reel against the 150 cloned stacks the manager used to pre-roll.
+// Run with -prof gc and compare gc.alloc.rate.norm. Each start replaces the player's previous spin.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationStartBenchmark {
+    private static final int LEGACY_DURATION = 140;
+
+    private AnimationManager animations;
+    private Player player;
+    private TestAnimationInventory gui;
+    private Crate crate;
+
+    @Setup
+    public void setUp() {
+        animations = new AnimationManager(new TestPlugin(Path.of("."), Map.of()).get());
+        player = TestPlayers.player(UUID.randomUUID());
+        gui = TestAnimationInventory.create(new TestInventory(27), (winner, fingerprint) -> {
+        });
+
+        crate = new Crate("Legendary", TestItems.item(0));
+        for (int i = 0; i < 12; i++) {
+            crate.addItem(TestItems.item(i), 1 + i * 5);
+        }
+    }
+
+    @Benchmark
+    public void startAnimation() {
+        animations.startAnimation(player, gui, crate, AnimationProfile.CLASSIC);
+    }
+
+    // The reel the old startAnimation built; the test items clone shallowly, so this is a lower bound
+    @Benchmark
+    public ItemStack[] legacyPreGeneratedReel() {
+        ItemStack[] preGeneratedItems = new ItemStack[LEGACY_DURATION + 10];
+        ItemStack winningItem = crate.getRandomItem();
+        for (int i = 0; i < preGeneratedItems.length - 10; i++) {
+            preGeneratedItems[i] = crate.getRandomItem();
+        }
+        for (int i = preGeneratedItems.length - 10; i < preGeneratedItems.length; i++) {
+            preGeneratedItems[i] = winningItem;
+        }
+        return preGeneratedItems;
+    }
+}
@@ -0,0 +1,106 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import pl.polardev.scase.TestInventory;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.inventory.TestAnimationInventory;
+import pl.polardev.scase.model.AnimationProfile;
+import pl.polardev.scase.model.Crate;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one server tick of AnimationManager with 2,000 spins running. Every finished spin starts the next
+// one for the same player, and starts are spread over a whole spin, so the load is the same on every tick.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationTickBenchmark {
+    private static final int ANIMATIONS = 2000;
+
+    private AnimationManager animations;
+    private Runnable tick;
+    private long ticks;
+    private long framesAtStart;
+    private long writesAtStart;
+
+    @Setup
+    public void setUp() {
+        TestPlugin plugin = new TestPlugin(Path.of("."), Map.of());
+        animations = new AnimationManager(plugin.get());
+        tick = plugin.getTimers().get(0);
+
+        Crate crate = new Crate("Legendary", TestItems.item(0));
+        for (int i = 0; i < 12; i++) {
+            crate.addItem(TestItems.item(i), 1 + i * 5);
+        }
+        AnimationProfile profile = AnimationProfile.CLASSIC;
+
+        Player[] players = new Player[ANIMATIONS];
+        for (int i = 0; i < ANIMATIONS; i++) {
+            Player player = TestPlayers.player(UUID.randomUUID());
+            players[i] = player;
+        }
+
+        int duration = profile.getDuration();
+        for (int t = 0; t < duration; t++) {
+            for (int i = t; i < ANIMATIONS; i += duration) {
+                start(players[i], crate, profile);
+            }
+            tick.run();
+        }
+    }
+
+    private void start(Player player, Crate crate, AnimationProfile profile) {
+        TestAnimationInventory[] gui = new TestAnimationInventory[1];
+        gui[0] = TestAnimationInventory.create(new TestInventory(27),
+            (winner, fingerprint) -> animations.startAnimation(player, gui[0], crate, profile));
+        animations.startAnimation(player, gui[0], crate, profile);
+    }
+
+    @Setup(Level.Iteration)
+    public void mark() {
+        ticks = 0;
+        framesAtStart = animations.getFramesRendered();
+        writesAtStart = animations.getSlotWrites();
+    }
+
+    @Benchmark
+    public void tick() {
+        tick.run();
+        ticks++;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report(IterationParams iteration) {
+        if (animations.getActiveAnimations() != ANIMATIONS) {
+            throw new IllegalStateException(animations.getActiveAnimations() + " animations running");
+        }
+        if (iteration.getType() == IterationType.MEASUREMENT) {
+            System.out.printf("%n%.1f frames and %.1f slot writes per tick%n",
+                (animations.getFramesRendered() - framesAtStart) / (double) ticks,
+                (animations.getSlotWrites() - writesAtStart) / (double) ticks);
+        }
+    }
+}
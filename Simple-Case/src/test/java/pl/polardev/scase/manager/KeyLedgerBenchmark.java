@@ -0,0 +1,129 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.storage.AtomicFileWriter;
+import pl.polardev.scase.storage.KeyLedgerStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Key balance lookups of online players: the ledger against the old CrateManager.getKeyAmount cache.
+// Crate names keep their display spelling, the way callers pass crate.getName(). Run with -prof gc.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyLedgerBenchmark {
+    private static final int PLAYERS = 200;
+    private static final int CRATES = 20;
+
+    private Path dataFolder;
+    private KeyLedger ledger;
+    private LegacyKeyCache legacy;
+    private Player[] players;
+    private String[] crateNames;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataFolder = Files.createTempDirectory("key-ledger-bench");
+        KeyLedgerStore store = new KeyLedgerStore(dataFolder.resolve("keys").toFile(), AtomicFileWriter.SyncMode.NONE);
+        store.open();
+        ledger = new KeyLedger(new TestPlugin(dataFolder, Map.of()).get(), store, new CrateIdRegistry());
+        legacy = new LegacyKeyCache();
+
+        crateNames = new String[CRATES];
+        for (int c = 0; c < CRATES; c++) {
+            crateNames[c] = "Crate_" + c;
+        }
+
+        players = new Player[PLAYERS];
+        for (int p = 0; p < PLAYERS; p++) {
+            Player player = TestPlayers.player(UUID.randomUUID());
+            Map<String, Integer> balances = new HashMap<>();
+            for (int c = 0; c < CRATES; c++) {
+                balances.put(crateNames[c].toLowerCase(), p + c);
+                legacy.put(player.getUniqueId(), crateNames[c].toLowerCase(), p + c);
+            }
+            store.write(player.getUniqueId(), balances);
+            ledger.handleJoin(player);
+            players[p] = player;
+        }
+    }
+
+    @Benchmark
+    public int legacyGetKeyAmount() {
+        int i = next++;
+        return legacy.getKeyAmount(players[i % PLAYERS], crateNames[i % CRATES]);
+    }
+
+    @Benchmark
+    public int ledgerGetBalance() {
+        int i = next++;
+        return ledger.getBalance(players[i % PLAYERS], crateNames[i % CRATES]);
+    }
+
+    // Opening one crate: check the balance, then take a key and give it back so balances stay put
+    @Benchmark
+    public boolean ledgerDebitCredit() {
+        int i = next++;
+        Player player = players[i % PLAYERS];
+        String crateName = crateNames[i % CRATES];
+        boolean taken = ledger.debit(player, crateName, 1);
+        ledger.credit(player, crateName, 1);
+        return taken;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ledger.shutdown(5000);
+        try (Stream<Path> paths = Files.walk(dataFolder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // The cache-hit path of CrateManager.getKeyAmount before the ledger; a miss fell through to the player's PDC
+    private static final class LegacyKeyCache {
+        private final Map<UUID, Map<String, Integer>> playerKeyCache = new ConcurrentHashMap<>();
+
+        void put(UUID playerId, String lowerCrateName, int amount) {
+            playerKeyCache.computeIfAbsent(playerId, k -> new ConcurrentHashMap<>()).put(lowerCrateName, amount);
+        }
+
+        int getKeyAmount(Player player, String crateName) {
+            UUID playerId = player.getUniqueId();
+            String lowerCrateName = crateName.toLowerCase();
+
+            Map<String, Integer> playerKeys = playerKeyCache.get(playerId);
+            if (playerKeys != null && playerKeys.containsKey(lowerCrateName)) {
+                return playerKeys.get(lowerCrateName);
+            }
+            throw new IllegalStateException("Not cached: " + lowerCrateName);
+        }
+    }
+}
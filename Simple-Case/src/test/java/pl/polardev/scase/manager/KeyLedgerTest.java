@@ -0,0 +1,227 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.storage.AtomicFileWriter;
+import pl.polardev.scase.storage.KeyLedgerStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyLedgerTest {
+    @TempDir
+    Path dataFolder;
+
+    private FlakyStore store;
+    private KeyLedger ledger;
+    private Player player;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new FlakyStore(dataFolder.resolve("keys"));
+        store.open();
+        ledger = new KeyLedger(new TestPlugin(dataFolder, Map.of()).get(), store, new CrateIdRegistry());
+        player = TestPlayers.player(UUID.randomUUID());
+        store.write(player.getUniqueId(), Map.of());
+        ledger.handleJoin(player);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.shutdown(5000);
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        int keys = 20_000;
+        int threads = 8;
+        ledger.credit(player, "Legendary", keys);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int amount = 1 + t % 3;
+            results.add(pool.submit(() -> {
+                start.await();
+                int taken = 0;
+                // Mixed all-or-nothing and partial debits, plus mixed spellings of the crate name
+                while (true) {
+                    if (amount == 2) {
+                        int partial = ledger.debitUpTo(player, "legendary", amount);
+                        if (partial == 0) break;
+                        taken += partial;
+                    } else if (ledger.debit(player, "LEGENDARY", amount)) {
+                        taken += amount;
+                    } else if (ledger.getBalance(player, "Legendary") < amount) {
+                        break;
+                    }
+                }
+                return taken;
+            }));
+        }
+        start.countDown();
+
+        int taken = 0;
+        for (Future<Integer> result : results) {
+            taken += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(keys, taken);
+        assertEquals(0, ledger.getBalance(player, "Legendary"));
+        assertFalse(ledger.debit(player, "Legendary", 1));
+    }
+
+    @Test
+    void failedWriteIsRetriedByALaterFlush() throws Exception {
+        store.writes.set(0);
+        store.failWrites.set(1);
+        ledger.credit(player, "Legendary", 5);
+
+        assertTrue(flushUntilSaved(), "account never reached the disk after a failed write");
+        assertEquals(2, store.writes.get());
+        assertEquals(Map.of("legendary", 5), store.load(player.getUniqueId()));
+    }
+
+    @Test
+    void failedSyncIsRetriedByALaterFlush() throws Exception {
+        store.failSyncs.set(1);
+        ledger.credit(player, "Legendary", 3);
+
+        assertTrue(flushUntilSaved(), "account never counted as saved after a failed sync");
+        assertEquals(Map.of("legendary", 3), store.load(player.getUniqueId()));
+    }
+
+    @Test
+    void savedBalancesSurviveARejoin() throws Exception {
+        ledger.credit(player, "Legendary", 7);
+        ledger.credit(player, "Common", 2);
+        assertTrue(ledger.debit(player, "Common", 2));
+        ledger.handleQuit(player.getUniqueId());
+        ledger.shutdown(5000);
+
+        KeyLedger reloaded = new KeyLedger(new TestPlugin(dataFolder, Map.of()).get(), store, new CrateIdRegistry());
+        try {
+            reloaded.handleJoin(player);
+            assertEquals(7, reloaded.getBalance(player, "legendary"));
+            assertEquals(0, reloaded.getBalance(player, "Common"));
+        } finally {
+            reloaded.shutdown(5000);
+        }
+    }
+
+    @Test
+    void concurrentFlushesLeaveNoAccountBehind() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    ledger.credit(player, "Legendary", 1);
+                    ledger.flush();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(flushUntilSaved(), "an account was left in the writing map");
+        assertEquals(Map.of("legendary", threads * 2_000), store.load(player.getUniqueId()));
+    }
+
+    @Test
+    void preloadedAccountWaitsForTheJoinWithoutAQuitGracePeriod() throws Exception {
+        TestPlugin plugin = new TestPlugin(dataFolder, Map.of("keys.quit-grace-seconds", 0L));
+        KeyLedger noGrace = new KeyLedger(plugin.get(), store, new CrateIdRegistry());
+        Player joining = TestPlayers.player(UUID.randomUUID());
+        store.write(joining.getUniqueId(), Map.of("legendary", 4));
+        store.loads.set(0);
+
+        try {
+            noGrace.preload(joining.getUniqueId());
+            plugin.tick();
+            noGrace.handleJoin(joining);
+
+            assertEquals(4, noGrace.getBalance(joining, "Legendary"));
+            assertEquals(1, store.loads.get(), "the join read the account from disk again");
+            assertEquals(0, noGrace.getMisses());
+            assertEquals(0, noGrace.getPreloadedAccounts());
+        } finally {
+            noGrace.shutdown(5000);
+        }
+    }
+
+    // Keeps flushing like the timer would until the writer reports the account as written
+    private boolean flushUntilSaved() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ledger.flush();
+            if (ledger.getAccountsWritten() > 0 && ledger.getDirtyAccounts() == 0) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private static final class FlakyStore extends KeyLedgerStore {
+        private final AtomicInteger failWrites = new AtomicInteger();
+        private final AtomicInteger failSyncs = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private FlakyStore(Path folder) {
+            super(folder.toFile(), AtomicFileWriter.SyncMode.NONE);
+        }
+
+        @Override
+        public Map<String, Integer> load(UUID playerId) throws IOException {
+            loads.incrementAndGet();
+            return super.load(playerId);
+        }
+
+        @Override
+        public void write(UUID playerId, Map<String, Integer> balances) throws IOException {
+            writes.incrementAndGet();
+            if (failWrites.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IOException("Simulated write failure");
+            }
+            super.write(playerId, balances);
+        }
+
+        @Override
+        public void sync() throws IOException {
+            if (failSyncs.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IOException("Simulated sync failure");
+            }
+            super.sync();
+        }
+    }
+}
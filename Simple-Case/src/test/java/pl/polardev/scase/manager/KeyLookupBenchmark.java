@@ -0,0 +1,91 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.model.Crate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// "Does this player have a key" on a full 41-slot inventory of items with heavy meta: the old isSimilar scan
+// against PhysicalKeyIndex. With the key in the last slot the scan compares every slot; without one it still
+// does, while the index answers both from its counts.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyLookupBenchmark {
+    @Param({"last", "none"})
+    public String keySlot;
+
+    private PhysicalKeyIndex index;
+    private Player player;
+    private Crate crate;
+    private ItemStack requiredKey;
+
+    @Setup
+    public void setUp() {
+        CrateIdRegistry crateIds = new CrateIdRegistry();
+        index = new PhysicalKeyIndex(new TestPlugin(Path.of("."), Map.of()).get(), crateIds, () -> List.of(crate));
+
+        requiredKey = TestItems.key(3, "legendary");
+        crate = new Crate("Legendary", TestItems.item(0));
+        crate.setKeyItem(requiredKey);
+
+        // Named, enchanted gear everywhere: the serialized form isSimilar ends up comparing is the largest variant
+        ItemStack[] contents = new ItemStack[TestPlayers.INVENTORY_SIZE];
+        for (int slot = 0; slot < contents.length; slot++) {
+            contents[slot] = TestItems.item(3 + slot * 4);
+        }
+        if (keySlot.equals("last")) {
+            contents[contents.length - 1] = TestItems.key(3, "legendary");
+        }
+        player = TestPlayers.player(UUID.randomUUID(), contents);
+    }
+
+    // The key check the crate menus did before the index
+    @Benchmark
+    public boolean legacyIsSimilarScan() {
+        return Arrays.stream(player.getInventory().getContents())
+            .anyMatch(item -> item != null && item.isSimilar(requiredKey));
+    }
+
+    @Benchmark
+    public boolean indexHasKey() {
+        return index.hasKey(player, crate);
+    }
+
+    // After a click or drag marked one slot: one tag read
+    @Benchmark
+    public boolean indexAfterSlotChange() {
+        index.markSlot(player, 20);
+        return index.hasKey(player, crate);
+    }
+
+    // After a shift-click or a grant invalidated the player: one tag read per slot
+    @Benchmark
+    public boolean indexAfterInventoryChange() {
+        index.invalidate(player);
+        return index.hasKey(player, crate);
+    }
+}
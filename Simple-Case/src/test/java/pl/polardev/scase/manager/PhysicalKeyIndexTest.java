@@ -0,0 +1,130 @@
+package pl.polardev.scase.manager;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.model.Crate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhysicalKeyIndexTest {
+    private static final int KEY_VARIANT = 3;
+
+    @TempDir
+    Path dataFolder;
+
+    private PhysicalKeyIndex index;
+    private Crate crate;
+    private ItemStack[] contents;
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        crate = new Crate("Legendary", TestItems.item(0));
+        crate.setKeyItem(TestItems.key(KEY_VARIANT, "legendary"));
+        index = new PhysicalKeyIndex(new TestPlugin(dataFolder, Map.of()).get(), new CrateIdRegistry(), () -> List.of(crate));
+
+        contents = new ItemStack[TestPlayers.INVENTORY_SIZE];
+        player = TestPlayers.player(UUID.randomUUID(), contents);
+    }
+
+    @Test
+    void joinStampsKeysFromBeforeTagging() {
+        contents[7] = TestItems.untaggedKey(KEY_VARIANT);
+        index.handleJoin(player);
+
+        assertTrue(index.isStamped(contents[7], "Legendary"));
+        assertEquals(1, index.getMigratedKeys());
+        assertTrue(index.takeKey(player, crate));
+        assertNull(contents[7]);
+    }
+
+    // An old key taken out of a chest after joining is found by the next rescan, not only on the next join
+    @Test
+    void rescanStampsKeysFromBeforeTagging() {
+        index.handleJoin(player);
+        assertFalse(index.hasKey(player, crate));
+
+        contents[20] = TestItems.untaggedKey(KEY_VARIANT);
+        index.invalidate(player);
+
+        assertTrue(index.hasKey(player, crate));
+        assertTrue(index.isStamped(contents[20], "Legendary"));
+        assertEquals(1, index.getMigratedKeys());
+    }
+
+    @Test
+    void markedSlotsUpdateTheCountsWithoutARescan() {
+        contents[5] = TestItems.key(KEY_VARIANT, "legendary");
+        index.handleJoin(player);
+        assertEquals(1, index.getKeyCount(player, crate));
+
+        // Moved to another slot, then a second key added
+        contents[9] = contents[5];
+        contents[5] = null;
+        contents[12] = TestItems.key(KEY_VARIANT, "legendary");
+        index.markSlot(player, 5);
+        index.markSlot(player, 9);
+        index.markSlot(player, 12);
+        assertEquals(2, index.getKeyCount(player, crate));
+
+        contents[9] = null;
+        index.markSlot(player, 9);
+        assertEquals(1, index.getKeyCount(player, crate));
+        assertTrue(index.takeKey(player, crate));
+        assertNull(contents[12]);
+        assertFalse(index.hasKey(player, crate));
+
+        assertEquals(1, index.getRescans());
+        assertEquals(4, index.getSlotUpdates());
+    }
+
+    // A clean index is trusted for "no key" too; only taking verifies slots and rescans on a mismatch
+    @Test
+    void noKeyAnswerDoesNotRescan() {
+        index.handleJoin(player);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(index.hasKey(player, crate));
+        }
+        assertEquals(1, index.getRescans());
+
+        contents[5] = TestItems.key(KEY_VARIANT, "legendary");
+        index.handleJoin(player);
+        contents[30] = contents[5];
+        contents[5] = null;
+        assertTrue(index.takeKey(player, crate));
+        assertNull(contents[30]);
+        assertEquals(3, index.getRescans());
+    }
+
+    @Test
+    void onlyPossibleKeysCountAsKeyChanges() {
+        assertTrue(index.mayBeKey(TestItems.key(KEY_VARIANT, "legendary")));
+        assertTrue(index.mayBeKey(TestItems.untaggedKey(KEY_VARIANT + 1)));
+        assertFalse(index.mayBeKey(TestItems.item(4)));
+        assertFalse(index.mayBeKey(null));
+    }
+
+    @Test
+    void otherItemsOfTheKeyMaterialAreLeftAlone() {
+        contents[3] = TestItems.untaggedKey(KEY_VARIANT + 1);
+        index.handleJoin(player);
+
+        assertFalse(index.hasKey(player, crate));
+        assertFalse(index.isStamped(contents[3], "Legendary"));
+        assertEquals(0, index.getMigratedKeys());
+    }
+}
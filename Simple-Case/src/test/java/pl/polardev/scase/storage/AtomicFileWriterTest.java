@@ -0,0 +1,111 @@
+package pl.polardev.scase.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtomicFileWriterTest {
+    private static final int CRATES = 200;
+    private static final int ROUNDS = 12;
+    private static final long GENERATIONS_PER_ROUND = 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void killedWriterLeavesEveryFileOldOrNew() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(directory, AtomicFileWriter.SyncMode.BATCH);
+        for (int crate = 0; crate < CRATES; crate++) {
+            writer.write(CrashingWriter.fileName(crate), CrashingWriter.content(crate, 0));
+        }
+        writer.sync();
+
+        long[] previous = new long[CRATES];
+        int changed = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long firstGeneration = round * GENERATIONS_PER_ROUND;
+            killMidFlush(firstGeneration);
+
+            // Torn renames would show up as a temp file only, leftovers are what startup cleans
+            writer.cleanupTemporaryFiles();
+            for (int crate = 0; crate < CRATES; crate++) {
+                byte[] data = Files.readAllBytes(directory.resolve(CrashingWriter.fileName(crate)));
+                long generation = CrashingWriter.generationOf(data);
+
+                assertTrue(generation == previous[crate] || generation >= firstGeneration,
+                    "crate " + crate + " has generation " + generation + " after round " + round);
+                assertArrayEquals(CrashingWriter.content(crate, generation), data, "crate " + crate + " is torn");
+
+                if (generation != previous[crate]) {
+                    changed++;
+                }
+                previous[crate] = generation;
+            }
+        }
+
+        assertTrue(changed > 0, "the child never got to write anything");
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, "*" + AtomicFileWriter.TEMP_SUFFIX)) {
+            assertFalse(temps.iterator().hasNext());
+        }
+    }
+
+    private void killMidFlush(long firstGeneration) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            CrashingWriter.class.getName(), directory.toString(), String.valueOf(CRATES),
+            String.valueOf(firstGeneration), "batch")
+            .redirectErrorStream(true)
+            .start();
+
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals(CrashingWriter.READY, output.readLine());
+            Thread.sleep(ThreadLocalRandom.current().nextInt(1, 40));
+            process.destroyForcibly();
+            assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void failedDirectorySyncIsThrownAndRetried() throws IOException {
+        Path folder = Files.createDirectory(directory.resolve("cases"));
+        AtomicFileWriter writer = new AtomicFileWriter(folder, AtomicFileWriter.SyncMode.BATCH);
+        writer.write("crate.yml", new byte[]{1, 2, 3});
+
+        Files.delete(folder.resolve("crate.yml"));
+        Files.delete(folder);
+        assertThrows(IOException.class, writer::sync);
+        // Still dirty: the next batch syncs again instead of reporting success
+        assertThrows(IOException.class, writer::sync);
+
+        Files.createDirectory(folder);
+        writer.sync();
+    }
+
+    @Test
+    void failedRenameRemovesTempFile() throws IOException {
+        AtomicFileWriter writer = new AtomicFileWriter(directory, AtomicFileWriter.SyncMode.NONE);
+        Files.createDirectory(directory.resolve("crate.yml"));
+        Files.writeString(directory.resolve("crate.yml").resolve("blocker"), "x");
+
+        assertThrows(IOException.class, () -> writer.write("crate.yml", new byte[]{1}));
+        assertFalse(Files.exists(directory.resolve("crate.yml" + AtomicFileWriter.TEMP_SUFFIX)));
+    }
+}
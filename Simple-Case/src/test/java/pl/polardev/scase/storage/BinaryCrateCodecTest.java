@@ -0,0 +1,82 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.model.Crate;
+import pl.polardev.scase.model.CrateContents;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCrateCodecTest {
+    private MockedStatic<ItemStack> itemStatics;
+
+    @BeforeEach
+    void mockItems() {
+        itemStatics = TestItems.mockDeserialization();
+    }
+
+    @AfterEach
+    void closeMocks() {
+        itemStatics.close();
+    }
+
+    @Test
+    void roundTripKeepsWeightsAndKey() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            BinaryCrateCodec codec = new BinaryCrateCodec(compress);
+            Crate original = CrateStorageBenchmark.crate("Legendary", 5);
+
+            Crate decoded = codec.decode("Legendary", codec.encode("Legendary", original.getContents()));
+            CrateContents contents = decoded.getContents();
+
+            assertEquals("Legendary", decoded.getName());
+            assertNotNull(contents.getKeyItem());
+            assertEquals(original.getContents().getItemCount(), contents.getItemCount());
+            assertArrayEquals(original.getWeights(), contents.getWeights());
+        }
+    }
+
+    @Test
+    void crateWithoutKeyStaysKeyless() throws IOException {
+        BinaryCrateCodec codec = new BinaryCrateCodec(true);
+        Crate crate = new Crate("Free", TestItems.item(1));
+        crate.addItem(TestItems.item(2), 3);
+
+        Crate decoded = codec.decode("Free", codec.encode("Free", crate.getContents()));
+        assertNull(decoded.getContents().getKeyItem());
+        assertEquals(3, decoded.getContents().getWeight(0));
+    }
+
+    @Test
+    void compressionShrinksRepetitiveCrates() throws IOException {
+        Crate crate = new Crate("Big", TestItems.item(3));
+        for (int i = 0; i < 200; i++) {
+            crate.addItem(TestItems.item(3), 1);
+        }
+
+        int plain = new BinaryCrateCodec(false).encode("Big", crate.getContents()).length;
+        int deflated = new BinaryCrateCodec(true).encode("Big", crate.getContents()).length;
+        assertTrue(deflated < plain / 2, deflated + " bytes compressed vs " + plain);
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedFiles() throws IOException {
+        BinaryCrateCodec codec = new BinaryCrateCodec(false);
+        byte[] data = codec.encode("Cut", CrateStorageBenchmark.crate("Cut", 2).getContents());
+
+        assertThrows(IOException.class, () -> codec.decode("Cut", "name: Cut\n".getBytes()));
+        assertThrows(IOException.class, () -> codec.decode("Cut", Arrays.copyOf(data, data.length / 2)));
+    }
+}
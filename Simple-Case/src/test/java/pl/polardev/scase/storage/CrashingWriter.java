@@ -0,0 +1,61 @@
+package pl.polardev.scase.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Child process for AtomicFileWriterTest: rewrites every crate file generation after generation until it is killed
+public final class CrashingWriter {
+    public static final String READY = "ready";
+
+    private CrashingWriter() {
+    }
+
+    public static String fileName(int crate) {
+        return "crate_" + crate + ".yml";
+    }
+
+    // Sizes differ per crate so a torn write can't accidentally match a complete file
+    public static byte[] content(int crate, long generation) {
+        StringBuilder builder = new StringBuilder("crate " + crate + " generation " + generation + "\n");
+        int size = 2_000 + (crate * 37) % 6_000;
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + (crate + generation + i) % 26));
+        }
+        return builder.append("\nend\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static long generationOf(byte[] data) {
+        String text = new String(data, StandardCharsets.UTF_8);
+        int start = text.indexOf(" generation ");
+        int end = text.indexOf('\n');
+        if (start < 0 || end < start) return -1;
+
+        try {
+            return Long.parseLong(text.substring(start + " generation ".length(), end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args[0]);
+        int crates = Integer.parseInt(args[1]);
+        long generation = Long.parseLong(args[2]);
+        AtomicFileWriter writer = new AtomicFileWriter(directory, AtomicFileWriter.SyncMode.parse(args[3]));
+
+        boolean announced = false;
+        while (true) {
+            for (int crate = 0; crate < crates; crate++) {
+                writer.write(fileName(crate), content(crate, generation));
+                if (!announced) {
+                    System.out.println(READY);
+                    System.out.flush();
+                    announced = true;
+                }
+            }
+            writer.sync();
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.inventory.ItemStack;
+import org.mockito.MockedStatic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.model.Crate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Load time and bytes on disk for 1k crates per storage format. Files are decoded one after another on the
+// benchmark thread (the item factories are mocked per thread, see TestItems), so this is the per-crate cost
+// FileCrateStore spreads over its loader threads. Bytes on disk are printed once per fork.
+// Paper's own item deserialization is mocked out (see TestItems), so the numbers only cover parsing the file
+// and building the crate; the yaml param needs the real Bukkit YamlConfiguration, so run it against paper-api.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrateStorageBenchmark {
+    private static final int CRATES = 1000;
+
+    @Param({"yaml", "binary", "binary-deflate"})
+    public String format;
+
+    private MockedStatic<ItemStack> itemStatics;
+    private Path folder;
+    private CrateCodec codec;
+    private List<Path> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        itemStatics = TestItems.mockDeserialization();
+        folder = Files.createTempDirectory("crate-storage-bench");
+        codec = switch (format) {
+            case "yaml" -> new YamlCrateCodec();
+            case "binary" -> new BinaryCrateCodec(false);
+            default -> new BinaryCrateCodec(true);
+        };
+
+        AtomicFileWriter writer = new AtomicFileWriter(folder, AtomicFileWriter.SyncMode.NONE);
+        files = new ArrayList<>(CRATES);
+        long bytesOnDisk = 0;
+        for (int i = 0; i < CRATES; i++) {
+            String name = "crate_" + i;
+            byte[] data = codec.encode(name, crate(name, i).getContents());
+            writer.write(name + codec.getExtension(), data);
+            files.add(folder.resolve(name + codec.getExtension()));
+            bytesOnDisk += data.length;
+        }
+        System.out.printf("%n%s: %,d bytes on disk for %d crates (%,d per crate)%n",
+            format, bytesOnDisk, CRATES, bytesOnDisk / CRATES);
+    }
+
+    // 8 to 23 rewards, from plain blocks to named, enchanted gear
+    static Crate crate(String name, int seed) {
+        Crate crate = new Crate(name, TestItems.item(seed));
+        crate.setKeyItem(TestItems.item(seed + 1));
+        int rewards = 8 + seed % 16;
+        for (int i = 0; i < rewards; i++) {
+            crate.addItem(TestItems.item(seed * 7 + i), 1 + (seed + i) % 50);
+        }
+        return crate;
+    }
+
+    @Benchmark
+    public int loadAll() throws IOException {
+        int items = 0;
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            Crate crate = codec.decode(fileName.substring(0, fileName.length() - codec.getExtension().length()),
+                Files.readAllBytes(file));
+            items += crate.getContents().getItemCount();
+        }
+        return items;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        itemStatics.close();
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
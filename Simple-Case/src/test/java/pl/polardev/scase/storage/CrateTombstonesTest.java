@@ -0,0 +1,36 @@
+package pl.polardev.scase.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrateTombstonesTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    void deletedCratesSurviveARestart() throws IOException {
+        CrateTombstones tombstones = new CrateTombstones(folder, AtomicFileWriter.SyncMode.NONE);
+        tombstones.load();
+        tombstones.add("legendary");
+        tombstones.add("common");
+        tombstones.remove("common");
+
+        CrateTombstones reloaded = new CrateTombstones(folder, AtomicFileWriter.SyncMode.NONE);
+        reloaded.load();
+        assertTrue(reloaded.contains("legendary"));
+        assertFalse(reloaded.contains("common"));
+    }
+
+    @Test
+    void missingFileMeansNothingDeleted() throws IOException {
+        CrateTombstones tombstones = new CrateTombstones(folder, AtomicFileWriter.SyncMode.NONE);
+        tombstones.load();
+        assertFalse(tombstones.contains("legendary"));
+    }
+}
@@ -0,0 +1,102 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.model.Crate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// What an opening pays for the journal: record() at the 1000 opens/s a busy server sees, with the journal thread
+// draining alongside. SampleTime reports percentiles, so a slow enqueue can't hide in the average.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int PLAYERS = 200;
+
+    private Path dataFolder;
+    private OpeningJournal journal;
+    private Player[] players;
+    private Crate crate;
+    private ItemStack[] rewards;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        players = new Player[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            players[i] = TestPlayers.player(UUID.randomUUID());
+        }
+        crate = new Crate("Legendary", TestItems.item(0));
+        rewards = new ItemStack[16];
+        for (int i = 0; i < rewards.length; i++) {
+            rewards[i] = TestItems.item(i);
+        }
+    }
+
+    // A fresh journal per iteration, so the backlog an unpaced warmup queues up is gone before measuring
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        dataFolder = Files.createTempDirectory("journal-bench");
+        journal = new OpeningJournal(new TestPlugin(dataFolder, Map.of()).get());
+    }
+
+    // Paces measurement to about one opening per millisecond; not part of the measured time. Spins instead of
+    // parking, like a main thread busy with the rest of the tick. Warmup runs unpaced so record() is compiled the
+    // way it is on a server that has been up for a while - paced, 1000 calls/s would still be interpreted.
+    @Setup(Level.Invocation)
+    public void pace(IterationParams iteration) {
+        if (iteration.getType() == IterationType.WARMUP) return;
+
+        long until = System.nanoTime() + 1_000_000;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        int i = next++;
+        journal.record(players[i % PLAYERS], crate, rewards[i & 15], i, 1, OpeningJournal.OpenMode.NORMAL);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal(IterationParams iteration) throws IOException {
+        journal.shutdown(30_000);
+        if (iteration.getType() == IterationType.MEASUREMENT) {
+            System.out.printf("%n%,d openings written, %,d dropped%n", journal.getWrittenCount(), journal.getDroppedCount());
+        }
+        try (Stream<Path> paths = Files.walk(dataFolder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package pl.polardev.scase.storage;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.polardev.scase.TestItems;
+import pl.polardev.scase.TestPlayers;
+import pl.polardev.scase.TestPlugin;
+import pl.polardev.scase.model.Crate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpeningJournalTest {
+    private static final int BATCHES = 3;
+    private static final int PER_BATCH = 10_000;
+
+    @TempDir
+    Path dataFolder;
+
+    @Test
+    void everyOpeningEndsUpInAClosedSegment() throws Exception {
+        // Smallest segment size is 1MB, a batch of 10k lines is a bit over that
+        OpeningJournal journal = new OpeningJournal(new TestPlugin(dataFolder, Map.of("journal.segment-size-mb", 1L)).get());
+        Player player = TestPlayers.player(UUID.randomUUID());
+        Crate crate = new Crate("Legendary", TestItems.item(0));
+
+        for (int batch = 0; batch < BATCHES; batch++) {
+            for (int i = 0; i < PER_BATCH; i++) {
+                OpeningJournal.OpenMode mode = OpeningJournal.OpenMode.values()[i % 3];
+                journal.record(player, crate, TestItems.item(i), i, 1 + i % 4, mode);
+            }
+            awaitWritten(journal, (long) (batch + 1) * PER_BATCH);
+        }
+        journal.shutdown(5000);
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() >= BATCHES, "expected a rotation per batch, got " + segments);
+        for (Path segment : segments) {
+            assertTrue(segment.getFileName().toString().endsWith(".log.gz"), "left uncompressed: " + segment);
+        }
+
+        int lines = 0;
+        for (Path segment : segments) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    assertEquals(8, fields.length, line);
+                    assertEquals(player.getUniqueId().toString(), fields[1]);
+                    assertEquals("Legendary", fields[2]);
+                    lines++;
+                }
+            }
+        }
+        assertEquals(BATCHES * PER_BATCH, lines);
+        assertEquals(BATCHES * PER_BATCH, journal.getWrittenCount());
+        assertEquals(0, journal.getDroppedCount());
+    }
+
+    @Test
+    void shutdownWritesWhatIsStillQueued() throws Exception {
+        OpeningJournal journal = new OpeningJournal(new TestPlugin(dataFolder, Map.of()).get());
+        Player player = TestPlayers.player(UUID.randomUUID());
+        Crate crate = new Crate("Common", TestItems.item(1));
+
+        for (int i = 0; i < 100; i++) {
+            journal.record(player, crate, TestItems.item(i), i, 1, OpeningJournal.OpenMode.NORMAL);
+        }
+        journal.shutdown(5000);
+
+        assertEquals(100, journal.getWrittenCount());
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void disabledJournalRecordsNothing() throws Exception {
+        OpeningJournal journal = new OpeningJournal(new TestPlugin(dataFolder, Map.of("journal.enabled", false)).get());
+        journal.record(TestPlayers.player(UUID.randomUUID()), new Crate("Common", TestItems.item(1)),
+            TestItems.item(2), 2, 1, OpeningJournal.OpenMode.NORMAL);
+        journal.shutdown(1000);
+
+        assertEquals(0, journal.getPendingCount());
+        assertTrue(Files.notExists(dataFolder.resolve("journal")));
+    }
+
+    private static void awaitWritten(OpeningJournal journal, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.getWrittenCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dataFolder.resolve("journal"))) {
+            return files.sorted().toList();
+        }
+    }
+}